@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite.benchmarks;
+
+import name.dmaus.schxslt.testsuite.DirectoryTestsuite;
+import name.dmaus.schxslt.testsuite.Driver;
+import name.dmaus.schxslt.testsuite.JavaValidation;
+import name.dmaus.schxslt.testsuite.JavaValidationFactory;
+import name.dmaus.schxslt.testsuite.Report;
+import name.dmaus.schxslt.testsuite.Testcase;
+import name.dmaus.schxslt.testsuite.TestsuiteRunner;
+import name.dmaus.schxslt.testsuite.ValidationException;
+import name.dmaus.schxslt.testsuite.XMLSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.xml.transform.TransformerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks of the phases of a testcase execution.
+ *
+ * <p>The size of the synthetic testcase is controlled by the number of schema rules and document elements. Only the
+ * public API is used, so evaluating the expectations is measured as part of a complete run.</p>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark
+{
+    private static final String LABEL = "benchmark";
+    private static final String QUERY_BINDING = "xslt";
+
+    @Param({"10", "100"})
+    private int rules;
+
+    @Param({"100", "10000"})
+    private int elements;
+
+    private Path directory;
+    private DirectoryTestsuite testsuite;
+    private JavaValidation validation;
+    private JavaValidation uncachedValidation;
+    private TestsuiteRunner runner;
+    private Document report;
+    private XMLSerializer serializer;
+
+    @Setup(Level.Trial)
+    public void setUp () throws IOException, ValidationException
+    {
+        directory = Files.createTempDirectory("benchmark.");
+        Path testcases = Files.createDirectory(directory.resolve("testcases"));
+        SyntheticTestcase.writeTestcase(testcases, rules, elements);
+        testsuite = new DirectoryTestsuite(testcases, LABEL);
+        testsuite.setLoaderParallelism(1);
+
+        List<String> steps = SyntheticTestcase.getCompilerSteps(directory);
+        JavaValidationFactory factory = new JavaValidationFactory(LABEL, QUERY_BINDING, TransformerFactory.newInstance(), new String[0], steps);
+        JavaValidationFactory uncachedFactory = new JavaValidationFactory(LABEL, QUERY_BINDING, TransformerFactory.newInstance(), new String[0], steps);
+        uncachedFactory.setSchemaCaching(false);
+
+        Path schema = SyntheticTestcase.writeSchema(directory, rules);
+        Path document = SyntheticTestcase.writeDocument(directory, rules, elements);
+        validation = newValidation(factory, schema, document);
+        uncachedValidation = newValidation(uncachedFactory, schema, document);
+        validation.execute();
+
+        runner = new TestsuiteRunner(new Driver(factory));
+        report = validation.getReport();
+        serializer = new XMLSerializer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Testcase> load ()
+    {
+        return testsuite.getTestcases();
+    }
+
+    @Benchmark
+    public Testcase populate (final LoadedTestcase loaded) throws ValidationException
+    {
+        loaded.testcase.populate(QUERY_BINDING);
+        return loaded.testcase;
+    }
+
+    @Benchmark
+    public Document compileAndExecute () throws ValidationException
+    {
+        uncachedValidation.execute();
+        return uncachedValidation.getReport();
+    }
+
+    @Benchmark
+    public Document execute () throws ValidationException
+    {
+        validation.execute();
+        return validation.getReport();
+    }
+
+    @Benchmark
+    public Report run ()
+    {
+        return runner.run(testsuite);
+    }
+
+    @Benchmark
+    public int serialize ()
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(report, out);
+        return out.size();
+    }
+
+    static JavaValidation newValidation (final JavaValidationFactory factory, final Path schema, final Path document)
+    {
+        JavaValidation validation = factory.newInstance();
+        validation.setSchema(schema);
+        validation.setDocument(document);
+        return validation;
+    }
+
+    /**
+     * Freshly loaded testcase whose temporary files are removed after every invocation.
+     *
+     */
+    @State(Scope.Thread)
+    public static class LoadedTestcase
+    {
+        private Testcase testcase;
+
+        @Setup(Level.Invocation)
+        public void setUp (final EngineBenchmark benchmark)
+        {
+            testcase = benchmark.testsuite.getTestcases().get(0);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown ()
+        {
+            testcase.deleteTemporaryFiles();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write synthetic testcases of configurable size.
+ *
+ * <p>The schema has one rule per requested rule with an assert that holds for every item of the document. The
+ * document has the requested number of item elements distributed over the rules.</p>
+ *
+ */
+final class SyntheticTestcase
+{
+    /**
+     * System property with a comma separated list of compiler steps to use instead of the bundled minimal compiler.
+     *
+     */
+    static final String PROPERTY_COMPILER_STEPS = "schxslt.compilerSteps";
+
+    private SyntheticTestcase ()
+    {
+    }
+
+    /**
+     * Write a testcase with embedded schema and document.
+     *
+     * @param directory Target directory
+     * @param rules Number of schema rules
+     * @param elements Number of document elements
+     * @return Testcase file
+     * @throws IOException Error writing the testcase
+     */
+    static Path writeTestcase (final Path directory, final int rules, final int elements) throws IOException
+    {
+        Path file = directory.resolve(String.format("synthetic-%d-%d.xml", rules, elements));
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<testcase xmlns='tag:dmaus@dmaus.name,2019:Schematron:Testsuite'");
+            out.write(" xmlns:svrl='http://purl.oclc.org/dsdl/svrl' expect='valid' id='synthetic'>\n");
+            out.write("<label>Synthetic testcase</label>\n");
+            out.write("<documents>\n");
+            out.write("<primary filename='document.xml'>\n");
+            writeDocument(out, rules, elements);
+            out.write("</primary>\n");
+            out.write("</documents>\n");
+            out.write("<schemas>\n");
+            writeSchema(out, rules);
+            out.write("</schemas>\n");
+            out.write("<expectations>\n");
+            out.write("<expectation test='not(//svrl:failed-assert)'/>\n");
+            out.write("<expectation test='count(//svrl:successful-report) = 0'/>\n");
+            out.write("</expectations>\n");
+            out.write("</testcase>\n");
+        }
+        return file;
+    }
+
+    /**
+     * Write the schema of a testcase to a file of its own.
+     *
+     * @param directory Target directory
+     * @param rules Number of schema rules
+     * @return Schema file
+     * @throws IOException Error writing the schema
+     */
+    static Path writeSchema (final Path directory, final int rules) throws IOException
+    {
+        Path file = directory.resolve(String.format("schema-%d.sch", rules));
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeSchema(out, rules);
+        }
+        return file;
+    }
+
+    /**
+     * Write the document of a testcase to a file of its own.
+     *
+     * @param directory Target directory
+     * @param rules Number of schema rules
+     * @param elements Number of document elements
+     * @return Document file
+     * @throws IOException Error writing the document
+     */
+    static Path writeDocument (final Path directory, final int rules, final int elements) throws IOException
+    {
+        Path file = directory.resolve(String.format("document-%d-%d.xml", rules, elements));
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeDocument(out, rules, elements);
+        }
+        return file;
+    }
+
+    private static void writeSchema (final Writer out, final int rules) throws IOException
+    {
+        out.write("<sch:schema xmlns:sch='http://purl.oclc.org/dsdl/schematron'>\n");
+        out.write("  <sch:pattern>\n");
+        for (int i = 0; i < rules; i++) {
+            out.write(String.format("    <sch:rule context=\"item[@rule = '%d']\">\n", i));
+            out.write("      <sch:assert test='@value &gt;= 0'/>\n");
+            out.write("      <sch:report test='string-length(.) = 0'/>\n");
+            out.write("    </sch:rule>\n");
+        }
+        out.write("  </sch:pattern>\n");
+        out.write("</sch:schema>\n");
+    }
+
+    private static void writeDocument (final Writer out, final int rules, final int elements) throws IOException
+    {
+        out.write("<document xmlns=''>\n");
+        for (int i = 0; i < elements; i++) {
+            out.write(String.format("  <item rule='%d' value='%d'>Item %d</item>\n", i % rules, i, i));
+        }
+        out.write("</document>\n");
+    }
+
+    /**
+     * Return the compiler steps.
+     *
+     * @param directory Directory to extract the bundled compiler to
+     * @return Compiler steps
+     * @throws IOException Error extracting the bundled compiler
+     */
+    static List<String> getCompilerSteps (final Path directory) throws IOException
+    {
+        List<String> steps = new ArrayList<String>();
+        String property = System.getProperty(PROPERTY_COMPILER_STEPS);
+        if (property == null || property.isEmpty()) {
+            Path compiler = directory.resolve("compile.xsl");
+            try (InputStream in = SyntheticTestcase.class.getResourceAsStream("/compile.xsl")) {
+                Files.copy(in, compiler, StandardCopyOption.REPLACE_EXISTING);
+            }
+            steps.add(compiler.toAbsolutePath().toString());
+        } else {
+            for (String step : property.split(",")) {
+                steps.add(step.trim());
+            }
+        }
+        return steps;
+    }
+}
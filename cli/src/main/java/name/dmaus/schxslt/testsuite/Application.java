@@ -25,8 +25,10 @@
 package name.dmaus.schxslt.testsuite;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.FileSystemXmlApplicationContext;
 
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import java.util.Arrays;
@@ -37,6 +39,12 @@ import java.util.Arrays;
  */
 public final class Application
 {
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private static final double P50 = 50;
+    private static final double P95 = 95;
+    private static final double P99 = 99;
+
     private Application ()
     {
     }
@@ -47,39 +55,162 @@ public final class Application
         config.parse(args);
 
         Testsuite testsuite = new DirectoryTestsuite(Paths.get(config.getTestsuite()), config.getLabel());
-        ApplicationContext ctx = new FileSystemXmlApplicationContext(config.getConfigfile());
+        boolean failed;
+        try (ConfigurableApplicationContext ctx = new FileSystemXmlApplicationContext(config.getConfigfile())) {
+            if (config.isBenchmark()) {
+                failed = runBenchmark(config, ctx, testsuite);
+            } else if (config.getValidationFactoryNames().length > 1) {
+                failed = runMatrix(config, ctx, testsuite);
+            } else {
+                failed = runSingle(config, ctx, testsuite);
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    static boolean runSingle (final Configuration config, final ApplicationContext ctx, final Testsuite testsuite)
+    {
         ValidationFactory factory = (ValidationFactory)ctx.getBean(config.getValidationFactoryName());
         Driver driver = new Driver(factory);
+        driver.setWorkspaceManager(createWorkspaceManager(config));
+        driver.setTimeout(config.getTimeout());
         TestsuiteRunner runner;
         if (config.getSkipTestcaseIds() == null) {
             runner = new TestsuiteRunner(driver);
         } else {
             runner = new TestsuiteRunner(driver, Arrays.asList(config.getSkipTestcaseIds()));
         }
+        runner.setParallelism(config.getParallelism());
+        runner.setFailFast(config.isFailFast());
+        runner.setTimeBudget(config.getTimeBudget());
+        if (config.getManifest() != null) {
+            runner.setResultManifest(new ResultManifest(config.getManifest()));
+        }
+        runner.setRetainResults(false);
+        runner.addReportSink(new ConsoleReportSink(System.out));
+        if (config.getReportFiles() != null) {
+            for (String file : config.getReportFiles()) {
+                runner.addReportSink(ReportSinks.createFileSink(Paths.get(file)));
+            }
+        }
         Report report = runner.run(testsuite);
+        return report.hasFailures();
+    }
+
+    static boolean runMatrix (final Configuration config, final ApplicationContext ctx, final Testsuite testsuite)
+    {
+        MatrixRunner runner = new MatrixRunner();
+        WorkspaceManager workspaceManager = createWorkspaceManager(config);
+        for (String name : config.getValidationFactoryNames()) {
+            Driver driver = new Driver((ValidationFactory)ctx.getBean(name));
+            driver.setWorkspaceManager(workspaceManager);
+            driver.setTimeout(config.getTimeout());
+            if (config.getSkipTestcaseIds() == null) {
+                runner.addProcessor(name, driver);
+            } else {
+                runner.addProcessor(name, driver, Arrays.asList(config.getSkipTestcaseIds()));
+            }
+            if (config.getReportFiles() != null) {
+                for (String file : config.getReportFiles()) {
+                    runner.addReportSink(name, ReportSinks.createFileSink(getProcessorReportFile(Paths.get(file), name)));
+                }
+            }
+        }
+        runner.setParallelism(config.getParallelism());
+        MatrixReport report = runner.run(testsuite);
+
+        ConsoleReportSink console = new ConsoleReportSink(System.out);
 
         System.out.println(report.getLabel());
         System.out.println();
+        for (String processor : report.getProcessors()) {
+            System.out.print(String.format("%-8.8s ", processor));
+        }
+        System.out.println();
 
-        for (ValidationResult result : report.getValidationResults()) {
-            Testcase testcase = result.getTestcase();
-            System.out.println(String.format("%.8s %s", result.getStatus(), testcase.getLabel()));
-            if (result.getStatus() == ValidationStatus.SUCCESS || result.getStatus() == ValidationStatus.SKIPPED) {
-                testcase.deleteTemporaryFiles();
+        for (MatrixReport.Row row : report.getRows()) {
+            for (String processor : report.getProcessors()) {
+                System.out.print(String.format("%-8.8s ", row.getResult(processor).getStatus()));
             }
-            if (result.getStatus() != ValidationStatus.SUCCESS) {
-                if (result.getErrorMessage() != null) {
-                    System.out.println(String.format("\tmessage: %s", result.getErrorMessage()));
+            System.out.println(row.getTestcaseLabel());
+            for (String processor : report.getProcessors()) {
+                ValidationResult result = row.getResult(processor);
+                if (result.getStatus() != ValidationStatus.SUCCESS) {
+                    System.out.println(String.format("\tprocessor: %s", processor));
                 }
-                System.out.println(String.format("\tid: %s directory: %s", testcase.getId(), testcase.getTempDirectory()));
+                console.printDetails(result);
             }
         }
 
         System.out.println();
-        System.out.println(String.format("[Passed/Skipped/Failed/Total] = [%d/%d/%d/%d]", report.countSuccess(), report.countSkipped(), report.countFailure() + report.countError(), report.countTotal()));
+        System.out.println(String.format("%-12s p50/p95/p99 = %.3f/%.3f/%.3f ms", Timings.Phase.LOAD,
+                                         report.getLoadPercentile(P50) / NANOS_PER_MILLI,
+                                         report.getLoadPercentile(P95) / NANOS_PER_MILLI,
+                                         report.getLoadPercentile(P99) / NANOS_PER_MILLI));
+        for (String processor : report.getProcessors()) {
+            System.out.println();
+            System.out.println(processor);
+            console.printSummary(report.getReport(processor));
+        }
         System.out.println();
-        if (report.countFailure() > 0 || report.countError() > 0) {
-            System.exit(1);
+        return report.hasFailures();
+    }
+
+    static boolean runBenchmark (final Configuration config, final ApplicationContext ctx, final Testsuite testsuite)
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        WorkspaceManager workspaceManager = createWorkspaceManager(config);
+        for (String name : config.getValidationFactoryNames()) {
+            Driver driver = new Driver((ValidationFactory)ctx.getBean(name));
+            driver.setWorkspaceManager(workspaceManager);
+            driver.setTimeout(config.getTimeout());
+            runner.addProcessor(name, driver);
+        }
+        runner.setWarmupIterations(config.getWarmupIterations());
+        runner.setIterations(config.getIterations());
+        BenchmarkReport report = runner.run(testsuite);
+        report.write(Paths.get(config.getBenchmark()));
+
+        System.out.println(report.getLabel());
+        System.out.println();
+        System.out.println(String.format("%d warmup and %d measured iterations per testcase", report.getWarmupIterations(), report.getIterations()));
+        System.out.println();
+        System.out.println(String.format("%-8.8s %14s %10s %10s %10s %8s", "", "validations/s", "p50 ms", "p95 ms", "p99 ms", "failed"));
+        for (String processor : report.getProcessors()) {
+            System.out.println(String.format("%-8.8s %14.1f %10.3f %10.3f %10.3f %8d",
+                                             processor,
+                                             report.getThroughput(processor),
+                                             report.getPercentile(processor, P50) / NANOS_PER_MILLI,
+                                             report.getPercentile(processor, P95) / NANOS_PER_MILLI,
+                                             report.getPercentile(processor, P99) / NANOS_PER_MILLI,
+                                             report.countFailedIterations(processor)));
+        }
+        System.out.println();
+        return report.hasFailures();
+    }
+
+    /*
+     * The report of a processor in a matrix gets the processor name appended to the file name, e.g. report-saxon.xml.
+     */
+    static Path getProcessorReportFile (final Path report, final String processor)
+    {
+        String filename = report.getFileName().toString();
+        int extension = filename.lastIndexOf('.');
+        if (extension < 0) {
+            extension = filename.length();
+        }
+        return report.resolveSibling(filename.substring(0, extension) + "-" + processor + filename.substring(extension));
+    }
+
+    static WorkspaceManager createWorkspaceManager (final Configuration config)
+    {
+        WorkspaceManager workspaceManager = new WorkspaceManager();
+        workspaceManager.setKeepFailures(config.isKeepFailures());
+        if (config.getWorkspace() != null) {
+            workspaceManager.setRoot(Paths.get(config.getWorkspace()));
         }
+        return workspaceManager;
     }
 }
@@ -30,6 +30,8 @@ import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
 
+import java.time.Duration;
+
 /**
  * Commandline application configuration.
  *
@@ -41,6 +43,19 @@ final class Configuration
     private static final String OPTION_TESTCASES_SHORT = "t";
     private static final String OPTION_LABEL_SHORT = "l";
     private static final String OPTION_SKIP_SHORT = "s";
+    private static final String OPTION_PARALLEL_SHORT = "p";
+    private static final String OPTION_REPORT_SHORT = "r";
+    private static final String OPTION_KEEP_FAILURES_SHORT = "k";
+    private static final String OPTION_WORKSPACE_SHORT = "w";
+    private static final String OPTION_FAIL_FAST_SHORT = "f";
+    private static final String OPTION_TIME_BUDGET_SHORT = "m";
+    private static final String OPTION_TIMEOUT_SHORT = "o";
+    private static final String OPTION_MANIFEST_SHORT = "i";
+    private static final String OPTION_BENCHMARK = "benchmark";
+    private static final String OPTION_WARMUP = "warmup";
+    private static final String OPTION_ITERATIONS = "iterations";
+
+    private static final String[] MATRIX_UNSUPPORTED_OPTIONS = {OPTION_FAIL_FAST_SHORT, OPTION_TIME_BUDGET_SHORT, OPTION_MANIFEST_SHORT};
 
     private final DefaultParser parser = new DefaultParser();
     private final Options options = new Options();
@@ -49,17 +64,28 @@ final class Configuration
 
     Configuration ()
     {
-        options.addRequiredOption(OPTION_BEAN_SHORT, "bean", true, "Name of ValidationFactory bean");
+        options.addRequiredOption(OPTION_BEAN_SHORT, "bean", true, "Name of ValidationFactory bean, repeat for a processor matrix");
         options.addRequiredOption(OPTION_CONFIG_SHORT, "config", true, "Spring beans configuration file");
         options.addRequiredOption(OPTION_TESTCASES_SHORT, "testcases", true, "Testsuite directory");
         options.addOption(OPTION_LABEL_SHORT, "label", true, "Testsuite label");
         options.addOption(OPTION_SKIP_SHORT, "skip", true, "Skip testcases with this id");
+        options.addOption(OPTION_PARALLEL_SHORT, "parallel", true, "Number of testcases executed concurrently");
+        options.addOption(OPTION_REPORT_SHORT, "report", true, "Write report to this file, JSON Lines if ending in .jsonl, otherwise JUnit XML; one file per processor of a matrix");
+        options.addOption(OPTION_KEEP_FAILURES_SHORT, "keep-failures", false, "Keep the files of failed testcases for inspection");
+        options.addOption(OPTION_WORKSPACE_SHORT, "workspace", true, "Create testcase files in this directory, e.g. /dev/shm");
+        options.addOption(OPTION_FAIL_FAST_SHORT, "fail-fast", false, "Stop on the first failed testcase");
+        options.addOption(OPTION_TIME_BUDGET_SHORT, "max-time", true, "Stop scheduling testcases after this number of seconds");
+        options.addOption(OPTION_TIMEOUT_SHORT, "timeout", true, "Abort a single testcase after this number of seconds");
+        options.addOption(OPTION_MANIFEST_SHORT, "incremental", true, "Only execute testcases that changed or failed since the run recorded in this file");
+        options.addOption(null, OPTION_BENCHMARK, true, "Benchmark the processors and write the measurements to this file, JSON if ending in .json, otherwise CSV");
+        options.addOption(null, OPTION_WARMUP, true, "Number of unmeasured benchmark iterations per testcase, default 1");
+        options.addOption(null, OPTION_ITERATIONS, true, "Number of measured benchmark iterations per testcase, default 5");
     }
 
     void parse (final String[] args)
     {
         try {
-            arguments = parser.parse(options, args);
+            parseArguments(args);
         } catch (ParseException e) {
             System.err.println(e.getMessage());
             printHelp();
@@ -67,6 +93,22 @@ final class Configuration
         }
     }
 
+    /*
+     * A processor matrix has no early stop and no result manifest, so the options controlling them are rejected
+     * instead of silently ignored.
+     */
+    void parseArguments (final String[] args) throws ParseException
+    {
+        arguments = parser.parse(options, args);
+        if (getValidationFactoryNames().length > 1 && !isBenchmark()) {
+            for (String option : MATRIX_UNSUPPORTED_OPTIONS) {
+                if (arguments.hasOption(option)) {
+                    throw new ParseException(String.format("Option --%s requires a single --bean", options.getOption(option).getLongOpt()));
+                }
+            }
+        }
+    }
+
     String getLabel ()
     {
         return arguments.getOptionValue(OPTION_LABEL_SHORT);
@@ -77,6 +119,11 @@ final class Configuration
         return arguments.getOptionValue(OPTION_BEAN_SHORT);
     }
 
+    String[] getValidationFactoryNames ()
+    {
+        return arguments.getOptionValues(OPTION_BEAN_SHORT);
+    }
+
     String getTestsuite ()
     {
         return arguments.getOptionValue(OPTION_TESTCASES_SHORT);
@@ -92,6 +139,89 @@ final class Configuration
         return arguments.getOptionValues(OPTION_SKIP_SHORT);
     }
 
+    String[] getReportFiles ()
+    {
+        return arguments.getOptionValues(OPTION_REPORT_SHORT);
+    }
+
+    boolean isKeepFailures ()
+    {
+        return arguments.hasOption(OPTION_KEEP_FAILURES_SHORT);
+    }
+
+    String getWorkspace ()
+    {
+        return arguments.getOptionValue(OPTION_WORKSPACE_SHORT);
+    }
+
+    String getManifest ()
+    {
+        return arguments.getOptionValue(OPTION_MANIFEST_SHORT);
+    }
+
+    boolean isFailFast ()
+    {
+        return arguments.hasOption(OPTION_FAIL_FAST_SHORT);
+    }
+
+    Duration getTimeBudget ()
+    {
+        return getSeconds(OPTION_TIME_BUDGET_SHORT, "Invalid time budget: ");
+    }
+
+    Duration getTimeout ()
+    {
+        return getSeconds(OPTION_TIMEOUT_SHORT, "Invalid timeout: ");
+    }
+
+    Duration getSeconds (final String option, final String errorMessage)
+    {
+        String value = arguments.getOptionValue(option);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(errorMessage + value, e);
+        }
+    }
+
+    String getBenchmark ()
+    {
+        return arguments.getOptionValue(OPTION_BENCHMARK);
+    }
+
+    boolean isBenchmark ()
+    {
+        return arguments.hasOption(OPTION_BENCHMARK);
+    }
+
+    int getWarmupIterations ()
+    {
+        return getInt(OPTION_WARMUP, "1", "Invalid number of warmup iterations: ");
+    }
+
+    int getIterations ()
+    {
+        return getInt(OPTION_ITERATIONS, "5", "Invalid number of iterations: ");
+    }
+
+    int getParallelism ()
+    {
+        return getInt(OPTION_PARALLEL_SHORT, "1", "Invalid number of concurrent testcases: ");
+    }
+
+    int getInt (final String option, final String defaultValue, final String errorMessage)
+    {
+        String value = arguments.getOptionValue(option, defaultValue);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(errorMessage + value, e);
+        }
+    }
+
     void printHelp ()
     {
         HelpFormatter formatter = new HelpFormatter();
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.commons.cli.ParseException;
+
+class ConfigurationTest
+{
+    static final String[] REQUIRED = {"-b", "java", "-c", "beans.xml", "-t", "testcases"};
+
+    @Test
+    public void testBenchmarkOptions ()
+    {
+        Configuration config = new Configuration();
+        config.parse(with("--benchmark", "benchmark.csv", "--warmup", "2", "--iterations", "10"));
+
+        assertTrue(config.isBenchmark());
+        assertEquals("benchmark.csv", config.getBenchmark());
+        assertEquals(2, config.getWarmupIterations());
+        assertEquals(10, config.getIterations());
+    }
+
+    @Test
+    public void testBenchmarkDefaults ()
+    {
+        Configuration config = new Configuration();
+        config.parse(REQUIRED);
+
+        assertFalse(config.isBenchmark());
+        assertEquals(1, config.getWarmupIterations());
+        assertEquals(5, config.getIterations());
+    }
+
+    @Test
+    public void testMatrixRejectsSingleProcessorOptions () throws ParseException
+    {
+        Configuration config = new Configuration();
+        config.parseArguments(with("--fail-fast", "--max-time", "10", "--incremental", "manifest.properties"));
+        assertTrue(config.isFailFast());
+
+        for (String option : new String[] {"--fail-fast", "--max-time=10", "--incremental=manifest.properties"}) {
+            ParseException e = assertThrows(ParseException.class, () -> config.parseArguments(with("-b", "saxon", option)));
+            assertTrue(e.getMessage().contains(option.split("=")[0]));
+        }
+    }
+
+    static String[] with (final String... args)
+    {
+        String[] arguments = new String[REQUIRED.length + args.length];
+        System.arraycopy(REQUIRED, 0, arguments, 0, REQUIRED.length);
+        System.arraycopy(args, 0, arguments, REQUIRED.length, args.length);
+        return arguments;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Memoize the availability of a validation.
+ *
+ * <p>The availability is probed once and the result is reused. If a re-probe interval is set the availability is
+ * probed again as soon as the interval has passed.</p>
+ *
+ */
+public final class AvailabilityProbe
+{
+    private final BooleanSupplier probe;
+
+    private long interval;
+    private Boolean available;
+    private long probedAt;
+    private long lastDuration;
+    private long totalDuration;
+    private int count;
+
+    public AvailabilityProbe (final BooleanSupplier probe)
+    {
+        this.probe = probe;
+    }
+
+    /**
+     * Set the re-probe interval.
+     *
+     * @param interval Interval in milliseconds, 0 to never probe again
+     */
+    public synchronized void setInterval (final long interval)
+    {
+        if (interval < 0) {
+            throw new IllegalArgumentException("The re-probe interval must not be negative");
+        }
+        this.interval = interval;
+    }
+
+    public synchronized boolean isAvailable ()
+    {
+        if (available == null || isExpired()) {
+            long start = System.nanoTime();
+            available = probe.getAsBoolean();
+            probedAt = System.nanoTime();
+            lastDuration = probedAt - start;
+            totalDuration += lastDuration;
+            count++;
+        }
+        return available;
+    }
+
+    /**
+     * Return the cached result of the last probe.
+     *
+     * @return Result of the last probe or null if not yet probed
+     */
+    public synchronized Boolean getCachedResult ()
+    {
+        return available;
+    }
+
+    /**
+     * Return the duration of the last probe.
+     *
+     * @return Duration in nanoseconds
+     */
+    public synchronized long getLastDuration ()
+    {
+        return lastDuration;
+    }
+
+    /**
+     * Return the accumulated duration of all probes.
+     *
+     * @return Duration in nanoseconds
+     */
+    public synchronized long getTotalDuration ()
+    {
+        return totalDuration;
+    }
+
+    public synchronized int countProbes ()
+    {
+        return count;
+    }
+
+    /**
+     * Discard the cached result.
+     *
+     */
+    public synchronized void reset ()
+    {
+        available = null;
+    }
+
+    boolean isExpired ()
+    {
+        return interval > 0 && System.nanoTime() - probedAt >= TimeUnit.MILLISECONDS.toNanos(interval);
+    }
+}
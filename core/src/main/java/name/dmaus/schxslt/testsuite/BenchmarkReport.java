@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Measurements of a benchmark run.
+ *
+ */
+public final class BenchmarkReport
+{
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private static final double P50 = 50;
+    private static final double P95 = 95;
+    private static final double P99 = 99;
+
+    private final List<Measurement> measurements = new ArrayList<Measurement>();
+
+    private final String label;
+    private final int warmupIterations;
+    private final int iterations;
+
+    BenchmarkReport (final String label, final int warmupIterations, final int iterations)
+    {
+        this.label = label;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    void addMeasurement (final Measurement measurement)
+    {
+        measurements.add(measurement);
+    }
+
+    public String getLabel ()
+    {
+        return label;
+    }
+
+    public int getWarmupIterations ()
+    {
+        return warmupIterations;
+    }
+
+    public int getIterations ()
+    {
+        return iterations;
+    }
+
+    public List<Measurement> getMeasurements ()
+    {
+        return Collections.unmodifiableList(measurements);
+    }
+
+    public Set<String> getProcessors ()
+    {
+        Set<String> processors = new LinkedHashSet<String>();
+        for (Measurement measurement : measurements) {
+            processors.add(measurement.getProcessor());
+        }
+        return processors;
+    }
+
+    /**
+     * Return the durations of all successful iterations of a processor.
+     *
+     * @param processor Processor label
+     * @return Durations in nanoseconds
+     */
+    public long[] getDurations (final String processor)
+    {
+        List<long[]> values = new ArrayList<long[]>();
+        int count = 0;
+        for (Measurement measurement : measurements) {
+            if (measurement.getProcessor().equals(processor)) {
+                long[] durations = measurement.getDurations();
+                values.add(durations);
+                count += durations.length;
+            }
+        }
+
+        long[] durations = new long[count];
+        int offset = 0;
+        for (long[] value : values) {
+            System.arraycopy(value, 0, durations, offset, value.length);
+            offset += value.length;
+        }
+        return durations;
+    }
+
+    /**
+     * Return the number of iterations of a processor that did not succeed.
+     *
+     * @param processor Processor label
+     * @return Number of failed iterations
+     */
+    public int countFailedIterations (final String processor)
+    {
+        int count = 0;
+        for (Measurement measurement : measurements) {
+            if (measurement.getProcessor().equals(processor)) {
+                count += measurement.countFailedIterations();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return true if an iteration of any testcase did not succeed.
+     *
+     * @return True if there are failed iterations
+     */
+    public boolean hasFailures ()
+    {
+        for (Measurement measurement : measurements) {
+            if (measurement.countFailedIterations() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return a latency percentile of a processor.
+     *
+     * @param processor Processor label
+     * @param percentile Percentile between 0 and 100
+     * @return Latency in nanoseconds
+     */
+    public long getPercentile (final String processor, final double percentile)
+    {
+        long[] durations = getDurations(processor);
+        return Report.getPercentile(durations, durations.length, percentile);
+    }
+
+    /**
+     * Return the throughput of a processor.
+     *
+     * @param processor Processor label
+     * @return Validations per second
+     */
+    public double getThroughput (final String processor)
+    {
+        long total = 0;
+        long[] durations = getDurations(processor);
+        for (long duration : durations) {
+            total += duration;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        return durations.length / (total / NANOS_PER_SECOND);
+    }
+
+    /**
+     * Write the report to a file.
+     *
+     * <p>The report is written as JSON if the filename ends in <code>.json</code> and as CSV otherwise.</p>
+     *
+     * @param file Target file
+     */
+    public void write (final Path file)
+    {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(out);
+            } else {
+                writeCsv(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void writeCsv (final Writer out) throws IOException
+    {
+        out.write("processor,testcase,status,succeeded,failed,throughput,p50_ms,p95_ms,p99_ms\n");
+        for (Measurement measurement : measurements) {
+            long[] durations = measurement.getDurations();
+            out.write(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%.3f,%.3f,%.3f,%.3f%n",
+                                    quoteCsv(measurement.getProcessor()),
+                                    quoteCsv(measurement.getTestcaseId()),
+                                    measurement.getStatus(),
+                                    durations.length,
+                                    measurement.countFailedIterations(),
+                                    measurement.getThroughput(),
+                                    toMillis(Report.getPercentile(durations, durations.length, P50)),
+                                    toMillis(Report.getPercentile(durations, durations.length, P95)),
+                                    toMillis(Report.getPercentile(durations, durations.length, P99))));
+        }
+    }
+
+    void writeJson (final Writer out) throws IOException
+    {
+        StringBuilder json = new StringBuilder("{");
+        JsonLinesReportSink.appendMember(json, "testsuite", label);
+        json.append(",\"warmupIterations\":").append(warmupIterations);
+        json.append(",\"iterations\":").append(iterations);
+        json.append(",\"processors\":[");
+        boolean first = true;
+        for (String processor : getProcessors()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('{');
+            JsonLinesReportSink.appendMember(json, "processor", processor);
+            json.append(",\"failed\":").append(countFailedIterations(processor));
+            appendStatistics(json, getDurations(processor), getThroughput(processor));
+            json.append('}');
+        }
+        json.append("],\"testcases\":[");
+        first = true;
+        for (Measurement measurement : measurements) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('{');
+            JsonLinesReportSink.appendMember(json, "processor", measurement.getProcessor()).append(',');
+            JsonLinesReportSink.appendMember(json, "testcase", measurement.getTestcaseId()).append(',');
+            JsonLinesReportSink.appendMember(json, "label", measurement.getTestcaseLabel()).append(',');
+            JsonLinesReportSink.appendMember(json, "status", String.valueOf(measurement.getStatus()));
+            json.append(",\"statuses\":[");
+            ValidationStatus[] statuses = measurement.getStatuses();
+            for (int i = 0; i < statuses.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                JsonLinesReportSink.appendString(json, statuses[i].toString());
+            }
+            json.append(']');
+            appendStatistics(json, measurement.getDurations(), measurement.getThroughput());
+            json.append('}');
+        }
+        json.append("]}\n");
+        out.write(json.toString());
+    }
+
+    private void appendStatistics (final StringBuilder json, final long[] durations, final double throughput)
+    {
+        json.append(String.format(Locale.ROOT, ",\"throughput\":%.3f,\"p50\":%d,\"p95\":%d,\"p99\":%d",
+                                  throughput,
+                                  Report.getPercentile(durations, durations.length, P50),
+                                  Report.getPercentile(durations, durations.length, P95),
+                                  Report.getPercentile(durations, durations.length, P99)));
+    }
+
+    private static String quoteCsv (final String value)
+    {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static double toMillis (final long nanos)
+    {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Measured iterations of one testcase by one processor.
+     *
+     * <p>Only successful iterations count towards the durations, the throughput and the percentiles.</p>
+     *
+     */
+    public static final class Measurement
+    {
+        private final String processor;
+        private final String testcaseId;
+        private final String testcaseLabel;
+        private final ValidationStatus[] statuses;
+        private final long[] durations;
+
+        Measurement (final String processor, final String testcaseId, final String testcaseLabel, final ValidationStatus[] statuses, final long[] durations)
+        {
+            if (statuses.length != durations.length) {
+                throw new IllegalArgumentException("Every iteration needs a status and a duration");
+            }
+            this.processor = processor;
+            this.testcaseId = testcaseId;
+            this.testcaseLabel = testcaseLabel;
+            this.statuses = statuses.clone();
+            this.durations = durations.clone();
+        }
+
+        public String getProcessor ()
+        {
+            return processor;
+        }
+
+        public String getTestcaseId ()
+        {
+            return testcaseId;
+        }
+
+        public String getTestcaseLabel ()
+        {
+            return testcaseLabel;
+        }
+
+        /**
+         * Return the status of the testcase.
+         *
+         * @return SUCCESS if all iterations succeeded, otherwise the status of the first iteration that did not
+         */
+        public ValidationStatus getStatus ()
+        {
+            for (ValidationStatus status : statuses) {
+                if (status != ValidationStatus.SUCCESS) {
+                    return status;
+                }
+            }
+            return ValidationStatus.SUCCESS;
+        }
+
+        public ValidationStatus[] getStatuses ()
+        {
+            return statuses.clone();
+        }
+
+        public int countFailedIterations ()
+        {
+            int count = 0;
+            for (ValidationStatus status : statuses) {
+                if (status != ValidationStatus.SUCCESS) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Return the durations of the successful iterations.
+         *
+         * @return Durations in nanoseconds
+         */
+        public long[] getDurations ()
+        {
+            long[] successful = new long[statuses.length - countFailedIterations()];
+            int count = 0;
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == ValidationStatus.SUCCESS) {
+                    successful[count++] = durations[i];
+                }
+            }
+            return successful;
+        }
+
+        public double getThroughput ()
+        {
+            long total = 0;
+            long[] successful = getDurations();
+            for (long duration : successful) {
+                total += duration;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            return successful.length / (total / NANOS_PER_SECOND);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.stream.Stream;
+
+/**
+ * Measure the performance of processors on a testsuite.
+ *
+ * <p>Every testcase is executed a number of warmup iterations followed by a number of measured iterations by every
+ * processor. Each iteration executes a fresh copy of the testcase. Testcases are executed one after another so that
+ * measurements do not interfere.</p>
+ *
+ */
+public final class BenchmarkRunner
+{
+    private final Map<String, Driver> drivers = new LinkedHashMap<String, Driver>();
+
+    private int warmupIterations = 1;
+    private int iterations = 5;
+
+    /**
+     * Add a processor to benchmark.
+     *
+     * @param label Processor label
+     * @param driver Driver of the processor
+     */
+    public void addProcessor (final String label, final Driver driver)
+    {
+        if (drivers.containsKey(label)) {
+            throw new IllegalArgumentException("Duplicate processor " + label);
+        }
+        drivers.put(label, driver);
+    }
+
+    public void setWarmupIterations (final int warmupIterations)
+    {
+        if (warmupIterations < 0) {
+            throw new IllegalArgumentException("Warmup iterations must not be negative");
+        }
+        this.warmupIterations = warmupIterations;
+    }
+
+    public int getWarmupIterations ()
+    {
+        return warmupIterations;
+    }
+
+    public void setIterations (final int iterations)
+    {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("There must be at least one measured iteration");
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations ()
+    {
+        return iterations;
+    }
+
+    public BenchmarkReport run (final Testsuite testsuite)
+    {
+        if (drivers.isEmpty()) {
+            throw new IllegalStateException("No processors to benchmark");
+        }
+
+        BenchmarkReport report = new BenchmarkReport(testsuite.getLabel(), warmupIterations, iterations);
+        try (Stream<Testcase> testcases = testsuite.getTestcaseStream()) {
+            Iterator<Testcase> iterator = testcases.iterator();
+            while (iterator.hasNext()) {
+                Testcase testcase = iterator.next();
+                for (Map.Entry<String, Driver> driver : drivers.entrySet()) {
+                    report.addMeasurement(measure(driver.getKey(), driver.getValue(), testcase));
+                }
+            }
+        }
+        return report;
+    }
+
+    BenchmarkReport.Measurement measure (final String processor, final Driver driver, final Testcase testcase)
+    {
+        for (int i = 0; i < warmupIterations; i++) {
+            execute(driver, testcase.copy());
+        }
+
+        long[] durations = new long[iterations];
+        ValidationStatus[] statuses = new ValidationStatus[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            ValidationResult result = execute(driver, testcase.copy());
+            durations[i] = System.nanoTime() - start;
+            statuses[i] = result.getStatus();
+        }
+        return new BenchmarkReport.Measurement(processor, testcase.getId(), testcase.getLabel(), statuses, durations);
+    }
+
+    ValidationResult execute (final Driver driver, final Testcase testcase)
+    {
+        try {
+            return driver.execute(testcase);
+        } catch (RuntimeException e) {
+            return new ValidationResult(testcase, ValidationStatus.ERROR, null, e.getMessage());
+        }
+    }
+}
@@ -35,17 +35,28 @@ import java.util.HashMap;
 /**
  * Perform an XSL transformation by executing a commandline application.
  *
+ * <p>If created with a worker pool the transformation is handed to a long-lived worker process instead.</p>
+ *
  */
 final class CommandlineTransformer
 {
     private final Map<String, String> parameters = new HashMap<String, String>();
     private final Path stylesheet;
     private final CommandlineBuilder commandlineBuilder;
+    private final CommandlineWorkerPool workerPool;
 
     CommandlineTransformer (final Path stylesheet, final CommandlineBuilder commandlineBuilder)
     {
         this.stylesheet = stylesheet;
         this.commandlineBuilder = commandlineBuilder;
+        this.workerPool = null;
+    }
+
+    CommandlineTransformer (final Path stylesheet, final CommandlineWorkerPool workerPool)
+    {
+        this.stylesheet = stylesheet;
+        this.commandlineBuilder = null;
+        this.workerPool = workerPool;
     }
 
     void setParameter (final String name, final String value)
@@ -55,22 +66,62 @@ final class CommandlineTransformer
 
     Path transform (final Path document) throws IOException, InterruptedException
     {
-        Path target = Files.createTempFile(null, null);
-        DeleteTemporaryFiles.add(target);
+        return transform(document, null);
+    }
 
-        commandlineBuilder
-            .reset()
-            .setDocument(document)
-            .setStylesheet(stylesheet)
-            .setParameters(parameters)
-            .setTarget(target);
+    /**
+     * Transform the document and write the result to a new file in a directory.
+     *
+     * <p>If no directory is given the result is written to the system's temporary directory and deleted when the
+     * virtual machine terminates.</p>
+     *
+     * @param  document  Document to transform
+     * @param  directory Directory of the result or null
+     * @return Result of the transformation
+     * @throws IOException          Error creating the result file
+     * @throws InterruptedException Interrupted while waiting for the external command
+     */
+    Path transform (final Path document, final Path directory) throws IOException, InterruptedException
+    {
+        Path target;
+        if (directory == null) {
+            target = Files.createTempFile(null, null);
+            DeleteTemporaryFiles.add(target);
+        } else {
+            target = Files.createTempFile(directory, "transform", ".xml");
+        }
+
+        if (workerPool != null) {
+            workerPool.transform(stylesheet, document, target, parameters);
+            return target;
+        }
 
-        String[] call = commandlineBuilder.build();
+        // The builder is shared by all validations of a factory
+        String[] call;
+        synchronized (commandlineBuilder) {
+            commandlineBuilder
+                .reset()
+                .setDocument(document)
+                .setStylesheet(stylesheet)
+                .setParameters(parameters)
+                .setTarget(target);
+
+            call = commandlineBuilder.build();
+        }
 
         Runtime runtime = Runtime.getRuntime();
         Process process = runtime.exec(call);
 
-        int exitcode = process.waitFor();
+        int exitcode;
+        ProcessTracker.register(process);
+        try {
+            exitcode = process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        } finally {
+            ProcessTracker.unregister(process);
+        }
         if (exitcode != 0) {
             throw new RuntimeException("Executing the external command failed with exit code " + exitcode);
         }
@@ -25,18 +25,20 @@
 package name.dmaus.schxslt.testsuite;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import java.util.Set;
 import java.util.List;
 import java.util.HashSet;
 
-import org.w3c.dom.NodeList;
 import org.w3c.dom.Document;
 
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
 
 /**
  * Implements validation with commandline applications like xsltproc.
@@ -44,22 +46,36 @@ import javax.xml.parsers.DocumentBuilderFactory;
  */
 public final class CommandlineValidation implements Validation
 {
-    private static final String NSSVRL = "http://purl.oclc.org/dsdl/svrl";
-
     private final List<Path> compilerSteps;
     private final Set<String> features = new HashSet<String>();
     private final CommandlineBuilder commandlineBuilder;
+    private final CommandlineWorkerPool workerPool;
     private final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private final SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
 
     private Path schema;
     private Path document;
     private String phase;
     private Document report;
+    private boolean reportRequired = true;
+    private final SvrlAnalyzer svrlAnalyzer = new SvrlAnalyzer();
+    private Timings timings = new Timings();
+
+    private SchemaStore schemaStore;
+    private String schemaStoreLabel;
+    private String contentHash;
 
     public CommandlineValidation (final CommandlineBuilder commandlineBuilder, final String[] features, final List<Path> compilerSteps)
+    {
+        this(commandlineBuilder, null, features, compilerSteps);
+    }
+
+    CommandlineValidation (final CommandlineBuilder commandlineBuilder, final CommandlineWorkerPool workerPool, final String[] features, final List<Path> compilerSteps)
     {
         this.documentBuilderFactory.setNamespaceAware(true);
+        this.saxParserFactory.setNamespaceAware(true);
         this.commandlineBuilder = commandlineBuilder;
+        this.workerPool = workerPool;
         this.compilerSteps = compilerSteps;
         for (int i = 0; i < features.length; i++) {
             this.features.add(features[i]);
@@ -81,11 +97,38 @@ public final class CommandlineValidation implements Validation
         phase = string;
     }
 
+    /**
+     * Set the persistent store of compiled schemas.
+     *
+     * @param schemaStore Schema store or null to not persist compiled schemas
+     * @param label Label of the processor that is part of the key of a stored schema
+     */
+    public void setSchemaStore (final SchemaStore schemaStore, final String label)
+    {
+        this.schemaStore = schemaStore;
+        this.schemaStoreLabel = label;
+    }
+
+    public void setContentHash (final String contentHash)
+    {
+        this.contentHash = contentHash;
+    }
+
     public Set<String> getFeatures ()
     {
         return features;
     }
 
+    public Timings getTimings ()
+    {
+        return timings;
+    }
+
+    public void setReportRequired (final boolean reportRequired)
+    {
+        this.reportRequired = reportRequired;
+    }
+
     public Document getReport ()
     {
         return report;
@@ -93,22 +136,41 @@ public final class CommandlineValidation implements Validation
 
     public boolean isValid ()
     {
-        NodeList asserts = report.getElementsByTagNameNS(NSSVRL, "failed-assert");
-        NodeList reports = report.getElementsByTagNameNS(NSSVRL, "successful-report");
-        if (reports.getLength() + asserts.getLength() > 0) {
-            return false;
-        }
-        return true;
+        return svrlAnalyzer.isValid();
+    }
+
+    public int countFailedAsserts ()
+    {
+        return svrlAnalyzer.countFailedAsserts();
+    }
+
+    public int countSuccessfulReports ()
+    {
+        return svrlAnalyzer.countSuccessfulReports();
     }
 
     public void execute () throws ValidationException
     {
+        timings = new Timings();
         try {
+            long start = System.nanoTime();
             Path compiledSchematron = compileSchematron();
-            CommandlineTransformer transformer = new CommandlineTransformer(compiledSchematron, commandlineBuilder);
-            Path compiledReport = transformer.transform(document);
-
-            report = documentBuilderFactory.newDocumentBuilder().parse(Files.newInputStream(compiledReport));
+            timings.recordSince(Timings.Phase.COMPILE, start);
+
+            start = System.nanoTime();
+            CommandlineTransformer transformer = newTransformer(compiledSchematron);
+            Path compiledReport = transformer.transform(document, getWorkingDirectory());
+
+            report = null;
+            try (InputStream in = Files.newInputStream(compiledReport)) {
+                if (reportRequired) {
+                    report = documentBuilderFactory.newDocumentBuilder().parse(in);
+                    svrlAnalyzer.analyze(report);
+                } else {
+                    saxParserFactory.newSAXParser().parse(in, svrlAnalyzer);
+                }
+            }
+            timings.recordSince(Timings.Phase.VALIDATE, start);
         } catch (Exception e) {
             throw new ValidationException(e);
         }
@@ -116,14 +178,50 @@ public final class CommandlineValidation implements Validation
 
     Path compileSchematron () throws IOException, InterruptedException
     {
+        String key = null;
+        if (schemaStore != null) {
+            key = schemaStore.createKey(schemaStoreLabel, contentHash, schema, phase, compilerSteps);
+            try (InputStream stored = schemaStore.open(key)) {
+                if (stored != null) {
+                    Path target = Files.createTempFile(getWorkingDirectory(), "compiled", ".xsl");
+                    Files.copy(stored, target, StandardCopyOption.REPLACE_EXISTING);
+                    return target;
+                }
+            }
+        }
+
         Path source = schema;
         for (Path step : compilerSteps) {
-            CommandlineTransformer transformer = new CommandlineTransformer(step, commandlineBuilder);
+            CommandlineTransformer transformer = newTransformer(step);
             if (phase != null) {
                 transformer.setParameter("phase", phase);
             }
-            source = transformer.transform(source);
+            source = transformer.transform(source, getWorkingDirectory());
+        }
+        if (key != null) {
+            schemaStore.put(key, source);
         }
         return source;
     }
+
+    /**
+     * Return the directory intermediate files are written to.
+     *
+     * <p>This is the directory of the schema, i.e. the testcase workspace.</p>
+     *
+     * @return Directory or null
+     */
+    Path getWorkingDirectory ()
+    {
+        Path absolute = schema.toAbsolutePath();
+        return absolute.getParent();
+    }
+
+    CommandlineTransformer newTransformer (final Path stylesheet)
+    {
+        if (workerPool == null) {
+            return new CommandlineTransformer(stylesheet, commandlineBuilder);
+        }
+        return new CommandlineTransformer(stylesheet, workerPool);
+    }
 }
@@ -35,17 +35,23 @@ import java.util.ArrayList;
  * Factory for commandline implementations.
  *
  */
-final class CommandlineValidationFactory implements ValidationFactory
+final class CommandlineValidationFactory implements ValidationFactory, AutoCloseable
 {
     private final String[] features;
     private final List<String> compilerSteps;
     private final CommandlineBuilder commandlineBuilder;
+    private final AvailabilityProbe availabilityProbe = new AvailabilityProbe(this::probeAvailability);
 
     private final String label;
     private final String queryBinding;
 
     private Path baseDirectory = Paths.get("").toAbsolutePath();
 
+    private List<String> workerCommand;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private CommandlineWorkerPool workerPool;
+    private SchemaStore schemaStore;
+
     CommandlineValidationFactory (final String label, final String queryBinding, final CommandlineBuilder commandlineBuilder, final String[] features, final List<String> compilerSteps)
     {
         this.label = label;
@@ -60,6 +66,42 @@ final class CommandlineValidationFactory implements ValidationFactory
         baseDirectory = basedir;
     }
 
+    /**
+     * Use a pool of long-lived worker processes started with this command.
+     *
+     * @param command Command and arguments of the worker process
+     * @see CommandlineWorkerPool
+     */
+    public void setWorkerCommand (final List<String> command)
+    {
+        workerCommand = command;
+    }
+
+    /**
+     * Set the interval after which the availability is probed again.
+     *
+     * @param interval Interval in milliseconds, 0 to probe only once
+     */
+    public void setProbeInterval (final long interval)
+    {
+        availabilityProbe.setInterval(interval);
+    }
+
+    public void setWorkers (final int workers)
+    {
+        this.workers = workers;
+    }
+
+    /**
+     * Persist compiled schemas across runs.
+     *
+     * @param schemaStore Schema store or null to not persist compiled schemas
+     */
+    public void setSchemaStore (final SchemaStore schemaStore)
+    {
+        this.schemaStore = schemaStore;
+    }
+
     public String getLabel ()
     {
         return label;
@@ -72,6 +114,47 @@ final class CommandlineValidationFactory implements ValidationFactory
 
     public boolean isAvailable ()
     {
+        return availabilityProbe.isAvailable();
+    }
+
+    public AvailabilityProbe getAvailabilityProbe ()
+    {
+        return availabilityProbe;
+    }
+
+    public String getFingerprint ()
+    {
+        return getFingerprint(baseDirectory);
+    }
+
+    public String getFingerprint (final Path basedir)
+    {
+        ContentDigest digest = new ContentDigest()
+            .update(label)
+            .update(queryBinding)
+            .update(commandlineBuilder.getClass().getName())
+            .update(String.join(",", features));
+        try {
+            for (Path step : getCompilerSteps(basedir)) {
+                digest.update(StylesheetDigest.digest(step));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return digest.toHex();
+    }
+
+    public SchemaCache getSchemaCache ()
+    {
+        return null;
+    }
+
+    boolean probeAvailability ()
+    {
+        if (workerCommand != null) {
+            return getWorkerPool().isAvailable();
+        }
+
         String[] command = commandlineBuilder.buildIsAvailableCommand();
 
         Runtime runtime = Runtime.getRuntime();
@@ -88,12 +171,51 @@ final class CommandlineValidationFactory implements ValidationFactory
 
     public CommandlineValidation newInstance ()
     {
-        List<Path> steps = new ArrayList<Path>();
-        for (String step : compilerSteps) {
-            steps.add(baseDirectory.resolve(Paths.get(step)));
+        return newInstance(baseDirectory);
+    }
+
+    public CommandlineValidation newInstance (final Path basedir)
+    {
+        List<Path> steps = getCompilerSteps(basedir);
+
+        CommandlineValidation validation = new CommandlineValidation(commandlineBuilder, getWorkerPool(), features, steps);
+        validation.setSchemaStore(schemaStore, label);
+        return validation;
+    }
+
+    /**
+     * Terminate the worker processes.
+     *
+     * <p>Spring calls this method when the application context is closed.</p>
+     *
+     */
+    public synchronized void close ()
+    {
+        if (workerPool != null) {
+            workerPool.shutdown();
+            workerPool = null;
         }
+    }
 
-        return new CommandlineValidation(commandlineBuilder, features, steps);
+    synchronized CommandlineWorkerPool getWorkerPool ()
+    {
+        if (workerPool == null && workerCommand != null) {
+            workerPool = new CommandlineWorkerPool(workerCommand, workers);
+        }
+        return workerPool;
     }
 
+    List<Path> getCompilerSteps ()
+    {
+        return getCompilerSteps(baseDirectory);
+    }
+
+    List<Path> getCompilerSteps (final Path basedir)
+    {
+        List<Path> steps = new ArrayList<Path>();
+        for (String step : compilerSteps) {
+            steps.add(basedir.resolve(Paths.get(step)));
+        }
+        return steps;
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+
+/**
+ * Pool of long-lived worker processes performing XSL transformations.
+ *
+ * <p>A worker reads one job per line from its standard input and answers every job with one line on its standard
+ * output. A job consists of tab-separated fields: the absolute path of the stylesheet, the absolute path of the
+ * source document, the absolute path of the result document and any number of stylesheet parameters in the form
+ * name=value. The answer is either <code>OK</code> or <code>ERROR</code> followed by a message.</p>
+ *
+ * <p>Workers are started on demand up to the size of the pool. A worker that terminates or fails to answer is
+ * discarded and replaced by the next job. A worker that is destroyed because its testcase timed out is discarded
+ * the same way and wakes up a job waiting for a worker, which then starts a replacement.</p>
+ *
+ * <p>After the pool is shut down idle workers are terminated at once and busy workers when their job is done.</p>
+ *
+ */
+final class CommandlineWorkerPool
+{
+    static final String RESPONSE_OK = "OK";
+
+    private static final char SEPARATOR = '\t';
+
+    private final List<String> command;
+    private final int size;
+    private final Deque<Worker> idle = new ArrayDeque<Worker>();
+
+    private int started;
+    private boolean shutdown;
+
+    CommandlineWorkerPool (final List<String> command, final int size)
+    {
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool must hold at least one worker");
+        }
+        this.command = new ArrayList<String>(command);
+        this.size = size;
+    }
+
+    void transform (final Path stylesheet, final Path document, final Path target, final Map<String, String> parameters) throws IOException, InterruptedException
+    {
+        String job = createJob(stylesheet, document, target, parameters);
+
+        Worker worker = acquire();
+        String response;
+        try {
+            response = worker.process(job);
+        } catch (IOException e) {
+            discard(worker);
+            throw e;
+        }
+        release(worker);
+
+        if (!RESPONSE_OK.equals(response)) {
+            throw new RuntimeException("The worker process failed to execute the transformation: " + response);
+        }
+    }
+
+    /**
+     * Return true if a worker can be started.
+     *
+     * @return True if a worker is available
+     */
+    boolean isAvailable ()
+    {
+        try {
+            release(acquire());
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    synchronized int countWorkers ()
+    {
+        return started;
+    }
+
+    /**
+     * Terminate all workers and refuse new jobs.
+     *
+     */
+    void shutdown ()
+    {
+        List<Worker> workers;
+        synchronized (this) {
+            shutdown = true;
+            workers = new ArrayList<Worker>(idle);
+            idle.clear();
+        }
+        for (Worker worker : workers) {
+            discard(worker);
+        }
+    }
+
+    String createJob (final Path stylesheet, final Path document, final Path target, final Map<String, String> parameters)
+    {
+        StringBuilder job = new StringBuilder();
+        job.append(field(stylesheet.toAbsolutePath().toString()));
+        job.append(SEPARATOR).append(field(document.toAbsolutePath().toString()));
+        job.append(SEPARATOR).append(field(target.toAbsolutePath().toString()));
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                job.append(SEPARATOR).append(field(entry.getKey() + "=" + entry.getValue()));
+            }
+        }
+        return job.toString();
+    }
+
+    String field (final String value)
+    {
+        if (value.indexOf(SEPARATOR) != -1 || value.indexOf('\n') != -1 || value.indexOf('\r') != -1) {
+            throw new IllegalArgumentException("Job fields must not contain tabs or line breaks: " + value);
+        }
+        return value;
+    }
+
+    Worker acquire () throws IOException, InterruptedException
+    {
+        synchronized (this) {
+            while (idle.isEmpty() && started >= size && !shutdown) {
+                wait();
+            }
+            if (shutdown) {
+                throw new IllegalStateException("The worker pool was shut down");
+            }
+            if (!idle.isEmpty()) {
+                return idle.remove();
+            }
+            started++;
+        }
+        try {
+            return new Worker(new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start());
+        } catch (IOException e) {
+            synchronized (this) {
+                started--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    void release (final Worker worker)
+    {
+        synchronized (this) {
+            if (worker.isAlive() && !shutdown) {
+                idle.add(worker);
+                notifyAll();
+                return;
+            }
+        }
+        discard(worker);
+    }
+
+    void discard (final Worker worker)
+    {
+        worker.destroy();
+        synchronized (this) {
+            started--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * A single worker process.
+     *
+     */
+    static final class Worker
+    {
+        private final Process process;
+        private final BufferedWriter input;
+        private final BufferedReader output;
+
+        Worker (final Process process)
+        {
+            this.process = process;
+            this.input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        String process (final String job) throws IOException
+        {
+            String response;
+            ProcessTracker.register(process);
+            try {
+                input.write(job);
+                input.newLine();
+                input.flush();
+                response = output.readLine();
+            } finally {
+                ProcessTracker.unregister(process);
+            }
+            if (response == null) {
+                throw new IOException("The worker process terminated unexpectedly");
+            }
+            return response;
+        }
+
+        boolean isAlive ()
+        {
+            return process.isAlive();
+        }
+
+        void destroy ()
+        {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.PrintStream;
+
+/**
+ * Print a report to the console.
+ *
+ * <p>Every result is printed as soon as it is available. Details are printed for results that did not succeed, the
+ * summary is printed when the report is finished.</p>
+ *
+ */
+public final class ConsoleReportSink implements ReportSink
+{
+    private static final double NANOS_PER_MILLISECOND = 1e6;
+    private static final double MEDIAN = 50;
+    private static final double P95 = 95;
+    private static final double P99 = 99;
+    private static final double BYTES_PER_KIBIBYTE = 1024;
+    private static final double BYTES_PER_MEBIBYTE = 1024 * 1024;
+
+    private final PrintStream out;
+
+    public ConsoleReportSink (final PrintStream out)
+    {
+        this.out = out;
+    }
+
+    public void start (final Report report)
+    {
+        out.println(report.getLabel());
+        out.println();
+    }
+
+    public void write (final ValidationResult result)
+    {
+        if (result.isReused()) {
+            out.println(String.format("%.9s %s", "UNCHANGED", result.getTestcase().getLabel()));
+        } else {
+            out.println(String.format("%.9s %s", result.getStatus(), result.getTestcase().getLabel()));
+        }
+        printDetails(result);
+    }
+
+    public void finish (final Report report)
+    {
+        out.println();
+        printSummary(report);
+        out.println();
+    }
+
+    void printDetails (final ValidationResult result)
+    {
+        Testcase testcase = result.getTestcase();
+        if (result.getStatus() != ValidationStatus.SUCCESS) {
+            if (result.getErrorMessage() != null) {
+                out.println(String.format("\tmessage: %s", result.getErrorMessage()));
+            }
+            if (testcase.getWorkspace() == null || testcase.getWorkspace().isDeleted()) {
+                out.println(String.format("\tid: %s", testcase.getId()));
+            } else {
+                out.println(String.format("\tid: %s directory: %s", testcase.getId(), testcase.getTempDirectory()));
+            }
+        }
+    }
+
+    void printSummary (final Report report)
+    {
+        out.println(String.format("Availability probes: %d in %.3f ms", report.countAvailabilityProbes(), report.getAvailabilityProbeDuration() / NANOS_PER_MILLISECOND));
+        out.println(String.format("Schema cache: %d hits, %d misses", report.countSchemaCacheHits(), report.countSchemaCacheMisses()));
+        out.println(String.format("Workspaces: %d created, %d kept, %.1f KiB written, largest %.1f KiB", report.countWorkspaces(), report.countKeptWorkspaces(),
+                                  report.getWorkspaceSize() / BYTES_PER_KIBIBYTE, report.getLargestWorkspaceSize() / BYTES_PER_KIBIBYTE));
+        for (Timings.Phase phase : Timings.Phase.values()) {
+            if (report.isPhaseRecorded(phase)) {
+                out.println(String.format("%-12s p50/p95/p99 = %.3f/%.3f/%.3f ms", phase,
+                                          report.getPercentile(phase, MEDIAN) / NANOS_PER_MILLISECOND,
+                                          report.getPercentile(phase, P95) / NANOS_PER_MILLISECOND,
+                                          report.getPercentile(phase, P99) / NANOS_PER_MILLISECOND));
+            }
+        }
+        if (report.getValidatedBytes() > 0) {
+            out.println(String.format("Throughput: %.1f MiB validated at %.1f MiB/s", report.getValidatedBytes() / BYTES_PER_MEBIBYTE, report.getThroughput() / BYTES_PER_MEBIBYTE));
+        }
+        if (report.countReused() > 0) {
+            out.println(String.format("Unchanged: %d testcases not executed again", report.countReused()));
+        }
+        if (report.getStopReason() != null) {
+            out.println(String.format("Stopped early: %s, %d testcases cancelled", report.getStopReason(), report.countCancelled()));
+        }
+        out.println(String.format("[Passed/Skipped/Failed/Total] = [%d/%d/%d/%d]", report.countSuccess(), report.countSkipped(), report.countFailure() + report.countError() + report.countTimeout(), report.countTotal()));
+    }
+}
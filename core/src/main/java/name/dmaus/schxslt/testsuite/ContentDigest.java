@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.w3c.dom.Node;
+
+/**
+ * Incrementally compute the SHA-256 hash of a cache key.
+ *
+ * <p>Every value is terminated by a zero byte so that adjacent values cannot be confused.</p>
+ *
+ */
+final class ContentDigest
+{
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int NIBBLE_BITS = 4;
+    private static final int NIBBLE_MASK = 0x0f;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<XMLSerializer> SERIALIZER = ThreadLocal.withInitial(XMLSerializer::new);
+
+    private final MessageDigest digest;
+
+    ContentDigest ()
+    {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    ContentDigest update (final String value)
+    {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte)0);
+        return this;
+    }
+
+    ContentDigest update (final Node node) throws IOException
+    {
+        try (OutputStream out = new DigestOutputStream(new NullOutputStream(), digest)) {
+            SERIALIZER.get().serialize(node, out);
+        }
+        digest.update((byte)0);
+        return this;
+    }
+
+    ContentDigest update (final Path file) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        digest.update((byte)0);
+        return this;
+    }
+
+    /**
+     * Return the hash and reset the digest.
+     *
+     * @return Hexadecimal hash
+     */
+    String toHex ()
+    {
+        byte[] bytes = digest.digest();
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < bytes.length; i++) {
+            hex.append(HEX[(bytes[i] >> NIBBLE_BITS) & NIBBLE_MASK]);
+            hex.append(HEX[bytes[i] & NIBBLE_MASK]);
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Discard everything written.
+     *
+     */
+    static final class NullOutputStream extends OutputStream
+    {
+        public void write (final int b)
+        {
+        }
+
+        public void write (final byte[] b, final int off, final int len)
+        {
+        }
+    }
+}
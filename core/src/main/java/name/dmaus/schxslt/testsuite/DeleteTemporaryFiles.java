@@ -26,6 +26,7 @@ package name.dmaus.schxslt.testsuite;
 
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Collections;
 
 import java.util.List;
 import java.util.ArrayList;
@@ -34,18 +35,23 @@ import java.util.Comparator;
 
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import java.io.IOException;
 
 /**
  * Collect and delete temporary files on shutdown.
  *
- * <p>Serves as functional replacement for File.deleteOnExit().</p>
+ * <p>Serves as functional replacement for File.deleteOnExit(). Directories are deleted with all their contents.
+ * Files that are deleted or kept before shutdown should be removed from the collection.</p>
  *
  */
 final class DeleteTemporaryFiles
 {
-    static final Set<Path> FILES = new HashSet<Path>();
+    static final Set<Path> FILES = Collections.synchronizedSet(new HashSet<Path>());
 
     private DeleteTemporaryFiles ()
     {
@@ -64,17 +70,43 @@ final class DeleteTemporaryFiles
         FILES.add(fileOrDirectory);
     }
 
+    static void remove (final Path fileOrDirectory)
+    {
+        FILES.remove(fileOrDirectory);
+    }
 
     static void onRuntimeShutdown ()
     {
-        List<Path> files = new ArrayList<Path>(FILES);
-        files.sort(Comparator.comparing(Path::getNameCount).reversed());
+        List<Path> files;
+        synchronized (FILES) {
+            files = new ArrayList<Path>(FILES);
+        }
         for (Path file : files) {
             try {
-                Files.deleteIfExists(file);
+                deleteRecursively(file);
             } catch (IOException | SecurityException e) {
                 System.err.println(e.getMessage());
             }
         }
     }
+
+    /**
+     * Delete a file or a directory with all its contents.
+     *
+     * @param fileOrDirectory File or directory
+     * @throws IOException Error deleting a file
+     */
+    static void deleteRecursively (final Path fileOrDirectory) throws IOException
+    {
+        if (!Files.exists(fileOrDirectory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(fileOrDirectory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
 }
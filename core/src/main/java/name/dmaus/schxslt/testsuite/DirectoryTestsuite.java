@@ -28,28 +28,47 @@ import java.io.IOException;
 
 import java.nio.file.Path;
 import java.nio.file.Files;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.FileVisitResult;
-import java.nio.file.attribute.BasicFileAttributes;
 
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Testsuite defined by a directory.
  *
+ * <p>Testcases are loaded in parallel, by default with one thread per available processor.</p>
+ *
  */
 public final class DirectoryTestsuite implements Testsuite
 {
     private final Path directory;
     private final String label;
 
+    private int loaderParallelism = Runtime.getRuntime().availableProcessors();
+
     public DirectoryTestsuite (final Path directory, final String label)
     {
         this.label = label;
         this.directory = directory;
     }
 
+    /**
+     * Set the number of threads loading testcases.
+     *
+     * @param loaderParallelism Number of threads
+     */
+    public void setLoaderParallelism (final int loaderParallelism)
+    {
+        if (loaderParallelism < 1) {
+            throw new IllegalArgumentException("Loader parallelism must be at least 1");
+        }
+        this.loaderParallelism = loaderParallelism;
+    }
+
     public String getLabel ()
     {
         return label;
@@ -57,22 +76,29 @@ public final class DirectoryTestsuite implements Testsuite
 
     public List<Testcase> getTestcases ()
     {
-        final List<Testcase> testcases = new ArrayList<Testcase>();
+        try (Stream<Testcase> testcases = getTestcaseStream()) {
+            return testcases.collect(Collectors.toList());
+        }
+    }
+
+    public Stream<Testcase> getTestcaseStream ()
+    {
         final TestcaseLoader loader = new TestcaseLoader();
-        SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
-                public FileVisitResult visitFile (final Path file, final BasicFileAttributes attrs) throws IOException
-                {
-                    if (file.toString().endsWith(".xml")) {
-                        testcases.add(loader.load(file));
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-            };
+        final Stream<Path> files;
         try {
-            Files.walkFileTree(directory, visitor);
+            files = Files.walk(directory)
+                .filter(file -> file.toString().endsWith(".xml") && !Files.isDirectory(file));
         } catch (IOException e) {
             throw new RuntimeException("Error walking directory " + directory.toAbsolutePath().toString(), e);
         }
-        return testcases;
+
+        if (loaderParallelism == 1) {
+            return files.map(loader::load);
+        }
+
+        PrefetchingTestcaseIterator testcases = new PrefetchingTestcaseIterator(loader, files.iterator(), loaderParallelism);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(testcases, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(testcases::close)
+            .onClose(files::close);
     }
 }
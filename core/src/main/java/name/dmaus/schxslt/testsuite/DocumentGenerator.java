@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+
+import javax.xml.transform.dom.DOMSource;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Generate a large primary document from a template.
+ *
+ * <p>The generator is declared by a <code>generate</code> element in the testcase namespace that takes the place of
+ * the inline primary document. The generated document consists of a document element named by the
+ * <code>root</code> attribute and a tree of <code>depth</code> levels of elements named by the
+ * <code>element</code> attribute, each with <code>fanout</code> children. Every leaf of the tree contains the
+ * content of the <code>generate</code> element, repeated <code>repeat</code> times.</p>
+ *
+ * <pre>
+ * &lt;primary filename="document.xml"&gt;
+ *   &lt;generate root="root" element="node" depth="3" fanout="10" repeat="1000"&gt;
+ *     &lt;item xmlns=""&gt;...&lt;/item&gt;
+ *   &lt;/generate&gt;
+ * &lt;/primary&gt;
+ * </pre>
+ *
+ * <p>The document is written to disk as a stream; only the template is held in memory.</p>
+ *
+ */
+final class DocumentGenerator
+{
+    static final String NAME_GENERATE = "generate";
+
+    private final String root;
+    private final String element;
+    private final int depth;
+    private final int fanout;
+    private final long repeat;
+    private final String template;
+
+    DocumentGenerator (final Element generate)
+    {
+        this.root = getAttribute(generate, "root", "root");
+        this.element = getAttribute(generate, "element", "node");
+        this.depth = Integer.parseInt(getAttribute(generate, "depth", "0"));
+        this.fanout = Integer.parseInt(getAttribute(generate, "fanout", "1"));
+        this.repeat = Long.parseLong(getAttribute(generate, "repeat", "1"));
+        if (depth < 0 || fanout < 1 || repeat < 0) {
+            throw new IllegalArgumentException("Invalid document generator: depth must not be negative, fanout must be at least 1 and repeat must not be negative");
+        }
+        this.template = serializeTemplate(generate);
+    }
+
+    /**
+     * Return the generator of a primary document or null if the document is given inline.
+     *
+     * @param  primary Primary document wrapper
+     * @return Generator or null
+     */
+    static DocumentGenerator of (final Element primary)
+    {
+        NodeList childNodes = primary.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            Node child = childNodes.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE && TestcaseSpec.NS.equals(child.getNamespaceURI()) && NAME_GENERATE.equals(child.getLocalName())) {
+                return new DocumentGenerator((Element)child);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the generated document.
+     *
+     * @param  file Target file
+     * @return Size of the document in bytes
+     * @throws IOException Error writing the document
+     */
+    long write (final Path file) throws IOException
+    {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            out.write("<" + root + ">");
+            writeLevel(out, depth);
+            out.write("</" + root + ">");
+        }
+        return Files.size(file);
+    }
+
+    void writeLevel (final Writer out, final int level) throws IOException
+    {
+        if (level == 0) {
+            for (long i = 0; i < repeat; i++) {
+                out.write(template);
+            }
+            return;
+        }
+        for (int i = 0; i < fanout; i++) {
+            out.write("<" + element + ">");
+            writeLevel(out, level - 1);
+            out.write("</" + element + ">");
+        }
+    }
+
+    /*
+     * Elements are copied with the namespace declarations in scope, like inline documents.
+     */
+    String serializeTemplate (final Element generate)
+    {
+        Transformer transformer;
+        try {
+            transformer = TransformerFactory.newInstance().newTransformer();
+        } catch (TransformerException e) {
+            throw new RuntimeException(e);
+        }
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+
+        StringBuilder buffer = new StringBuilder();
+        NodeList childNodes = generate.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            Node child = childNodes.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                StringWriter fragment = new StringWriter();
+                try {
+                    transformer.transform(new DOMSource(Testcase.copyOf((Element)child)), new StreamResult(fragment));
+                } catch (TransformerException e) {
+                    throw new RuntimeException(e);
+                }
+                buffer.append(fragment);
+            } else if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                buffer.append(escape(child.getNodeValue()));
+            }
+        }
+        return buffer.toString();
+    }
+
+    String escape (final String text)
+    {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    String getAttribute (final Element generate, final String name, final String defaultValue)
+    {
+        if (generate.hasAttribute(name)) {
+            return generate.getAttribute(name);
+        }
+        return defaultValue;
+    }
+}
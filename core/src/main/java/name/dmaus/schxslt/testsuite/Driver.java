@@ -30,6 +30,17 @@ import javax.xml.xpath.XPathExpressionException;
 
 import java.util.List;
 
+import java.nio.file.Path;
+
+import java.time.Duration;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.w3c.dom.Document;
 
 /**
@@ -38,43 +49,203 @@ import org.w3c.dom.Document;
  */
 public final class Driver
 {
-    private final XMLSerializer serializer = new XMLSerializer();
+    private final ThreadLocal<XMLSerializer> serializer = ThreadLocal.withInitial(XMLSerializer::new);
 
     private final ValidationFactory validationFactory;
+    private WorkspaceManager workspaceManager = new WorkspaceManager();
+
+    private Duration timeout;
+    private Path baseDirectory;
+    private ExecutorService timeoutExecutor;
 
     public Driver (final ValidationFactory validationFactory)
     {
         this.validationFactory = validationFactory;
     }
 
+    ValidationFactory getValidationFactory ()
+    {
+        return validationFactory;
+    }
+
+    /**
+     * Resolve the compiler steps against this directory instead of the base directory of the factory.
+     *
+     * @param baseDirectory Base directory or null to use the one of the factory
+     */
+    public void setBaseDirectory (final Path baseDirectory)
+    {
+        this.baseDirectory = baseDirectory;
+    }
+
+    public Path getBaseDirectory ()
+    {
+        return baseDirectory;
+    }
+
+    Validation newValidation ()
+    {
+        if (baseDirectory == null) {
+            return validationFactory.newInstance();
+        }
+        return validationFactory.newInstance(baseDirectory);
+    }
+
+    String getFingerprint ()
+    {
+        if (baseDirectory == null) {
+            return validationFactory.getFingerprint();
+        }
+        return validationFactory.getFingerprint(baseDirectory);
+    }
+
+    /**
+     * Set the manager of the workspaces testcases are populated in.
+     *
+     * @param workspaceManager Workspace manager
+     */
+    public void setWorkspaceManager (final WorkspaceManager workspaceManager)
+    {
+        this.workspaceManager = workspaceManager;
+    }
+
+    public WorkspaceManager getWorkspaceManager ()
+    {
+        return workspaceManager;
+    }
+
+    /**
+     * Set the maximum duration of a single testcase.
+     *
+     * <p>A testcase that takes longer is reported with the status TIMEOUT. Child processes started for the testcase
+     * are destroyed and the thread executing the testcase is interrupted. An in-process transformation that does not
+     * react to the interrupt is abandoned and left to run in a daemon thread.</p>
+     *
+     * @param timeout Timeout or null for no limit
+     */
+    public void setTimeout (final Duration timeout)
+    {
+        this.timeout = timeout;
+    }
+
+    public Duration getTimeout ()
+    {
+        return timeout;
+    }
+
     ValidationResult execute (final Testcase testcase)
+    {
+        if (timeout == null) {
+            return executeAndRelease(testcase);
+        }
+
+        ProcessTracker tracker = new ProcessTracker();
+        Future<ValidationResult> future = getTimeoutExecutor().submit(() -> {
+                ProcessTracker.setCurrent(tracker);
+                try {
+                    return executeAndRelease(testcase);
+                } finally {
+                    ProcessTracker.setCurrent(null);
+                }
+            });
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            tracker.destroyAll();
+            return new ValidationResult(testcase, ValidationStatus.TIMEOUT, null, String.format("Timed out after %s", timeout));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            tracker.destroyAll();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    synchronized ExecutorService getTimeoutExecutor ()
+    {
+        if (timeoutExecutor == null) {
+            timeoutExecutor = Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "testcase-" + validationFactory.getLabel());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        return timeoutExecutor;
+    }
+
+    /**
+     * Execute the testcase and release its workspace as soon as the result is final.
+     *
+     * @param testcase Testcase
+     * @return Result
+     */
+    ValidationResult executeAndRelease (final Testcase testcase)
+    {
+        ValidationResult result = null;
+        try {
+            result = executeTestcase(testcase);
+            return result;
+        } finally {
+            release(testcase, result);
+        }
+    }
+
+    void release (final Testcase testcase, final ValidationResult result)
+    {
+        Workspace workspace = testcase.getWorkspace();
+        if (workspace != null) {
+            ValidationStatus status = ValidationStatus.ERROR;
+            if (result != null) {
+                status = result.getStatus();
+            }
+            workspaceManager.release(workspace, status);
+        }
+    }
+
+    ValidationResult executeTestcase (final Testcase testcase)
     {
         ValidationStatus status = ValidationStatus.FAILURE;
         String errorMessage = null;
         Document report = null;
+        Timings timings = new Timings();
+        timings.record(Timings.Phase.LOAD, testcase.getLoadDuration());
 
         if (validationFactory.isAvailable()) {
 
             try {
-                Validation validation = validationFactory.newInstance();
+                Validation validation = newValidation();
 
                 if (isFeatureMatch(validation, testcase)) {
-                    testcase.populate(validationFactory.getQueryBinding());
-
-                    validation.setSchema(testcase.getSchema());
-                    validation.setDocument(testcase.getDocument());
+                    long start = System.nanoTime();
+                    populate(validation, testcase);
                     validation.setPhase(testcase.getPhase());
+                    validation.setReportRequired(isReportRequired(testcase));
+                    validation.setContentHash(testcase.getContentHash());
+                    timings.recordSince(Timings.Phase.POPULATE, start);
 
                     boolean success;
 
-                    validation.execute();
+                    try {
+                        validation.execute();
+                    } finally {
+                        timings.add(validation.getTimings());
+                    }
                     if (validation.isValid() == testcase.isExpectValid()) {
                         success = true;
                     } else {
                         success = false;
                     }
 
+                    start = System.nanoTime();
+                    writeReport(testcase, (Document)validation.getReport());
                     success = success && checkExpectations(testcase, (Document)validation.getReport());
+                    timings.recordSince(Timings.Phase.EXPECTATIONS, start);
                     if (testcase.isExpectError()) {
                         status = ValidationStatus.FAILURE;
                     } else if (success) {
@@ -96,7 +267,37 @@ public final class Driver
             errorMessage = "Validation not available";
             status = ValidationStatus.SKIPPED;
         }
-        return new ValidationResult(testcase, status, report, errorMessage);
+        return new ValidationResult(testcase, status, report, errorMessage, timings);
+    }
+
+    /*
+     * Generated documents are streamed to disk even if the validation accepts in-memory sources.
+     */
+    void populate (final Validation validation, final Testcase testcase) throws ValidationException
+    {
+        if (validation instanceof InMemoryValidation && !testcase.isGenerated()) {
+            InMemoryValidation inMemoryValidation = (InMemoryValidation)validation;
+            testcase.populateInMemory(validationFactory.getQueryBinding());
+            inMemoryValidation.setSchemaSource(testcase.getSchemaSource());
+            inMemoryValidation.setDocumentSource(testcase.getDocumentSource());
+            inMemoryValidation.setURIResolver(testcase.getURIResolver());
+        } else {
+            testcase.setWorkspace(workspaceManager.create(testcase.getId()));
+            testcase.populate(validationFactory.getQueryBinding());
+            validation.setSchema(testcase.getSchema());
+            validation.setDocument(testcase.getDocument());
+        }
+    }
+
+    /*
+     * The report is also written to the workspace of a testcase that might be kept for inspection.
+     */
+    boolean isReportRequired (final Testcase testcase)
+    {
+        if (!testcase.getExpectations().isEmpty()) {
+            return true;
+        }
+        return workspaceManager.isKeepFailures() && testcase.getReport() != null;
     }
 
     boolean isFeatureMatch (final Validation validation, final Testcase testcase)
@@ -109,6 +310,16 @@ public final class Driver
         return false;
     }
 
+    /*
+     * The report is written before the expectations are checked, so that a kept failure always contains it.
+     */
+    void writeReport (final Testcase testcase, final Document report)
+    {
+        if (report != null && testcase.getReport() != null) {
+            serializer.get().serialize(report, testcase.getReport());
+        }
+    }
+
     boolean checkExpectations (final Testcase testcase, final Document report) throws ValidationException
     {
         List<Expectation> expectations = testcase.getExpectations();
@@ -117,7 +328,6 @@ public final class Driver
             if (!expectations.isEmpty() && report == null) {
                 throw new ValidationException("Cannot check expectations because there is no report");
             } else {
-                serializer.serialize(report, testcase.getReport());
                 for (Expectation expectation : expectations) {
                     success = success && expectation.isSatisfied(report);
                 }
@@ -24,27 +24,53 @@
 
 package name.dmaus.schxslt.testsuite;
 
+import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 
 /**
  * An additional expectation wrt the validation report.
  *
+ * <p>Expectations are immutable and can be shared by threads. The XPath expression is compiled once per testcase
+ * specification. Compiled expressions are not thread-safe, so evaluations of the same expression are
+ * serialized.</p>
+ *
  */
 final class Expectation
 {
+    private static final ThreadLocal<XPathFactory> XPATH_FACTORY = ThreadLocal.withInitial(XPathFactory::newInstance);
+
+    private final String test;
+    private final Namespaces namespaces;
     private final XPathExpression expression;
 
-    Expectation (final XPathExpression expression)
+    Expectation (final String test, final Namespaces namespaces) throws XPathExpressionException
+    {
+        this.test = test;
+        this.namespaces = namespaces;
+        this.expression = compile();
+    }
+
+    String getTest ()
     {
-        this.expression = expression;
+        return test;
     }
 
     boolean isSatisfied (final Document report) throws XPathExpressionException
     {
-        return (boolean)expression.evaluate(report, XPathConstants.BOOLEAN);
+        synchronized (expression) {
+            return (boolean)expression.evaluate(report, XPathConstants.BOOLEAN);
+        }
+    }
+
+    XPathExpression compile () throws XPathExpressionException
+    {
+        XPath compiler = XPATH_FACTORY.get().newXPath();
+        compiler.setNamespaceContext(namespaces);
+        return compiler.compile(test);
     }
 }
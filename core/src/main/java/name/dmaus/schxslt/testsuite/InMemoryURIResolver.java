@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.net.URI;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.URIResolver;
+
+import javax.xml.transform.dom.DOMSource;
+
+import org.w3c.dom.Node;
+
+/**
+ * Resolve URIs to documents held in memory.
+ *
+ * <p>Returns null for unknown URIs so that the processor falls back to its default resolution.</p>
+ *
+ */
+final class InMemoryURIResolver implements URIResolver
+{
+    private final Map<String, Node> documents = new ConcurrentHashMap<String, Node>();
+    private final URI baseURI;
+
+    InMemoryURIResolver (final URI baseURI)
+    {
+        this.baseURI = baseURI;
+    }
+
+    void addDocument (final String systemId, final Node document)
+    {
+        documents.put(URI.create(systemId).normalize().toString(), document);
+    }
+
+    boolean isEmpty ()
+    {
+        return documents.isEmpty();
+    }
+
+    public Source resolve (final String href, final String base)
+    {
+        Source source = null;
+        try {
+            URI uri = baseURI;
+            if (base != null && !base.isEmpty()) {
+                uri = URI.create(base);
+            }
+            String systemId = uri.resolve(href).normalize().toString();
+            Node document = documents.get(systemId);
+            if (document != null) {
+                source = new DOMSource(document, systemId);
+            }
+        } catch (IllegalArgumentException e) {
+            source = null;
+        }
+        return source;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.text.SimpleDateFormat;
+
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Write a report in the JUnit XML format.
+ *
+ * <p>Testcases are written to a temporary file as soon as they finish. The report file is assembled when the report
+ * is finished because the testsuite element carries the final counts.</p>
+ *
+ */
+public final class JUnitReportSink implements ReportSink
+{
+    private static final String ENCODING = "UTF-8";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private final Path file;
+
+    private String label;
+    private Path body;
+    private OutputStream bodyStream;
+    private XMLStreamWriter bodyWriter;
+
+    public JUnitReportSink (final Path file)
+    {
+        this.file = file.toAbsolutePath();
+    }
+
+    public void start (final Report report) throws IOException
+    {
+        label = report.getLabel();
+        Files.createDirectories(file.getParent());
+        body = Files.createTempFile(file.getParent(), "junit", ".tmp");
+        bodyStream = Files.newOutputStream(body);
+        try {
+            bodyWriter = outputFactory.createXMLStreamWriter(bodyStream, ENCODING);
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void write (final ValidationResult result) throws IOException
+    {
+        try {
+            bodyWriter.writeStartElement("testcase");
+            bodyWriter.writeAttribute("name", result.getTestcase().getLabel());
+            bodyWriter.writeAttribute("classname", String.valueOf(label));
+            bodyWriter.writeAttribute("time", String.format(Locale.ROOT, "%.3f", result.getTimings().getTotal() / NANOS_PER_SECOND));
+            switch (result.getStatus()) {
+            case FAILURE:
+                writeMessage("failure", result);
+                break;
+            case ERROR:
+            case TIMEOUT:
+                writeMessage("error", result);
+                break;
+            case SKIPPED:
+            case CANCELLED:
+                writeMessage("skipped", result);
+                break;
+            default:
+                break;
+            }
+            if (result.isReused()) {
+                bodyWriter.writeStartElement("system-out");
+                bodyWriter.writeCharacters(result.getErrorMessage());
+                bodyWriter.writeEndElement();
+            }
+            bodyWriter.writeEndElement();
+            bodyWriter.writeCharacters("\n");
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void finish (final Report report) throws IOException
+    {
+        try {
+            bodyWriter.close();
+            bodyStream.close();
+            try (OutputStream out = Files.newOutputStream(file)) {
+                XMLStreamWriter writer = outputFactory.createXMLStreamWriter(out, ENCODING);
+                writer.writeStartDocument(ENCODING, "1.0");
+                writer.writeCharacters("\n");
+                writer.writeStartElement("testsuite");
+                writer.writeAttribute("name", String.valueOf(report.getLabel()));
+                writer.writeAttribute("tests", String.valueOf(report.countTotal()));
+                writer.writeAttribute("failures", String.valueOf(report.countFailure()));
+                writer.writeAttribute("errors", String.valueOf(report.countError() + report.countTimeout()));
+                writer.writeAttribute("skipped", String.valueOf(report.countSkipped() + report.countCancelled()));
+                writer.writeAttribute("timestamp", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.ROOT).format(report.getTimestamp()));
+                writer.writeCharacters("\n");
+                writer.flush();
+                Files.copy(body, out);
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            Files.deleteIfExists(body);
+        }
+    }
+
+    void writeMessage (final String name, final ValidationResult result) throws XMLStreamException
+    {
+        bodyWriter.writeStartElement(name);
+        bodyWriter.writeAttribute("type", result.getStatus().toString());
+        if (result.getErrorMessage() != null) {
+            bodyWriter.writeAttribute("message", result.getErrorMessage());
+        }
+        bodyWriter.writeCharacters("id: " + result.getTestcase().getId());
+        bodyWriter.writeEndElement();
+    }
+}
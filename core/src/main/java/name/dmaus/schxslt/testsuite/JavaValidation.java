@@ -25,6 +25,7 @@
 package name.dmaus.schxslt.testsuite;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -32,32 +33,40 @@ import java.nio.file.Path;
 import java.util.Set;
 import java.util.List;
 import java.util.HashSet;
+import java.util.ArrayList;
 
-import org.w3c.dom.NodeList;
 import org.w3c.dom.Document;
 
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.ErrorListener;
+import javax.xml.transform.URIResolver;
 
 import javax.xml.transform.Source;
 
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TemplatesHandler;
+import javax.xml.transform.sax.TransformerHandler;
+
 import javax.xml.transform.stream.StreamSource;
 
+import org.xml.sax.ContentHandler;
+
 /**
  * Java-based implementations.
  *
  */
-public final class JavaValidation implements Validation
+public final class JavaValidation implements InMemoryValidation
 {
-    private static final String NSSVRL = "http://purl.oclc.org/dsdl/svrl";
-
     private final List<Path> compilerSteps;
     private final TransformerFactory transformerFactory;
+    private final TemplatesCache templatesCache;
     private final Set<String> features = new HashSet<String>();
 
     private final ErrorListener errorListener = new ErrorListener () {
@@ -77,12 +86,31 @@ public final class JavaValidation implements Validation
 
     private Path schema;
     private Path document;
+    private Source schemaSource;
+    private Source documentSource;
+    private URIResolver uriResolver;
     private String phase;
     private Document report;
+    private boolean reportRequired = true;
+    private final SvrlAnalyzer svrlAnalyzer = new SvrlAnalyzer();
+    private Timings timings = new Timings();
+
+    private boolean streamingPipeline;
+    private SchemaCache schemaCache;
+    private boolean cachedCompilation;
+    private SchemaStore schemaStore;
+    private String schemaStoreLabel;
+    private String contentHash;
 
     public JavaValidation (final TransformerFactory transformerFactory, final String[] features, final List<Path> compilerSteps)
+    {
+        this(transformerFactory, new TemplatesCache(transformerFactory), features, compilerSteps);
+    }
+
+    JavaValidation (final TransformerFactory transformerFactory, final TemplatesCache templatesCache, final String[] features, final List<Path> compilerSteps)
     {
         this.transformerFactory = transformerFactory;
+        this.templatesCache = templatesCache;
         this.compilerSteps = compilerSteps;
         for (int i = 0; i < features.length; i++) {
             this.features.add(features[i]);
@@ -92,11 +120,28 @@ public final class JavaValidation implements Validation
     public void setSchema (final Path path)
     {
         schema = path;
+        schemaSource = null;
     }
 
     public void setDocument (final Path path)
     {
         document = path;
+        documentSource = null;
+    }
+
+    public void setSchemaSource (final Source source)
+    {
+        schemaSource = source;
+    }
+
+    public void setDocumentSource (final Source source)
+    {
+        documentSource = source;
+    }
+
+    public void setURIResolver (final URIResolver resolver)
+    {
+        uriResolver = resolver;
     }
 
     public void setPhase (final String string)
@@ -104,11 +149,70 @@ public final class JavaValidation implements Validation
         phase = string;
     }
 
+    /**
+     * Chain the compiler steps through SAX instead of building a DOM tree for every intermediate result.
+     *
+     * <p>Only takes effect if the transformer factory supports SAX.</p>
+     *
+     * @param streamingPipeline True to use the streaming pipeline
+     */
+    public void setStreamingPipeline (final boolean streamingPipeline)
+    {
+        this.streamingPipeline = streamingPipeline;
+    }
+
+    /**
+     * Set the cache of compiled schemas.
+     *
+     * @param schemaCache Schema cache or null to always compile the schema
+     */
+    public void setSchemaCache (final SchemaCache schemaCache)
+    {
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * Set the persistent store of compiled schemas.
+     *
+     * @param schemaStore Schema store or null to not persist compiled schemas
+     * @param label Label of the processor that is part of the key of a stored schema
+     */
+    public void setSchemaStore (final SchemaStore schemaStore, final String label)
+    {
+        this.schemaStore = schemaStore;
+        this.schemaStoreLabel = label;
+    }
+
+    public void setContentHash (final String contentHash)
+    {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Return true if the validating stylesheet of the last execution was taken from the schema cache.
+     *
+     * @return True if the compiled schema was cached
+     */
+    public boolean isCachedCompilation ()
+    {
+        return cachedCompilation;
+    }
+
     public Set<String> getFeatures ()
     {
         return features;
     }
 
+    public Timings getTimings ()
+    {
+        return timings;
+    }
+
+    public void setReportRequired (final boolean reportRequired)
+    {
+        this.reportRequired = reportRequired;
+    }
+
     public Document getReport ()
     {
         return report;
@@ -116,52 +220,247 @@ public final class JavaValidation implements Validation
 
     public boolean isValid ()
     {
-        NodeList asserts = report.getElementsByTagNameNS(NSSVRL, "failed-assert");
-        NodeList reports = report.getElementsByTagNameNS(NSSVRL, "successful-report");
-        if (reports.getLength() + asserts.getLength() > 0) {
-            return false;
-        }
-        return true;
+        return svrlAnalyzer.isValid();
     }
 
-    public void execute () throws ValidationException
+    public int countFailedAsserts ()
     {
-        try {
+        return svrlAnalyzer.countFailedAsserts();
+    }
 
-            StreamSource source = new StreamSource(Files.newInputStream(document));
-            source.setSystemId(document.toString());
+    public int countSuccessfulReports ()
+    {
+        return svrlAnalyzer.countSuccessfulReports();
+    }
 
-            DOMResult result = new DOMResult();
+    public void execute () throws ValidationException
+    {
+        timings = new Timings();
+        report = null;
+        try {
 
+            long start = System.nanoTime();
             Transformer transformer = compileSchematron();
+            if (uriResolver != null) {
+                transformer.setURIResolver(uriResolver);
+            }
+            timings.recordSince(Timings.Phase.COMPILE, start);
 
-            transformer.transform(source, result);
-
-            report = (Document)result.getNode();
+            start = System.nanoTime();
+            if (reportRequired) {
+                DOMResult result = new DOMResult();
+                transformer.transform(getDocumentSource(), result);
+                report = (Document)result.getNode();
+                svrlAnalyzer.analyze(report);
+            } else {
+                transformer.transform(getDocumentSource(), new SAXResult(svrlAnalyzer));
+            }
+            timings.recordSince(Timings.Phase.VALIDATE, start);
 
         } catch (Exception e) {
             throw new ValidationException(e);
         }
     }
 
+    Source getSchemaSource () throws IOException
+    {
+        if (schemaSource == null) {
+            return new StreamSource(Files.newInputStream(schema), schema.toString());
+        }
+        return schemaSource;
+    }
+
+    Source getDocumentSource () throws IOException
+    {
+        if (documentSource == null) {
+            return new StreamSource(Files.newInputStream(document), document.toString());
+        }
+        return documentSource;
+    }
+
     /*
-     * Compile schema to validating stylesheet.
+     * Compile schema to validating stylesheet or take it from the schema cache.
      *
      * @return Transformer
      */
     Transformer compileSchematron () throws IOException, TransformerException
     {
-        Source source = new StreamSource(Files.newInputStream(schema), schema.toString());
+        Source source = getSchemaSource();
+        String key = createCacheKey(source);
+
+        Templates templates = null;
+        if (key != null) {
+            templates = schemaCache.get(key);
+        }
+        if (templates == null) {
+            cachedCompilation = false;
+            templates = compile(source);
+            if (key != null) {
+                schemaCache.put(key, templates);
+            }
+        } else {
+            cachedCompilation = true;
+        }
+        return templates.newTransformer();
+    }
+
+    /*
+     * Only schemas held in memory are cached. The base URI becomes part of the key unless the schema cannot refer to
+     * any document relative to its location.
+     *
+     * @return Cache key or null if the schema is not cached
+     */
+    String createCacheKey (final Source source) throws IOException
+    {
+        if (schemaCache == null || !(source instanceof DOMSource)) {
+            return null;
+        }
+        return schemaCache.createKey(((DOMSource)source).getNode(), phase, getLocationBaseURI(source), compilerSteps);
+    }
+
+    String getLocationBaseURI (final Source source)
+    {
+        if (uriResolver instanceof InMemoryURIResolver && ((InMemoryURIResolver)uriResolver).isEmpty()) {
+            return null;
+        }
+        return source.getSystemId();
+    }
+
+    Templates compile (final Source source) throws IOException, TransformerException
+    {
+        if (schemaStore != null && source instanceof DOMSource) {
+            return compileStored((DOMSource)source);
+        }
+        if (streamingPipeline && transformerFactory.getFeature(SAXTransformerFactory.FEATURE)) {
+            return compileStreaming(source);
+        }
+        return newTemplates(compileStylesheet(source));
+    }
+
+    /*
+     * Load the validating stylesheet from the schema store or compile and store it. The streaming pipeline is not
+     * used because the stylesheet is needed as a document.
+     */
+    Templates compileStored (final DOMSource source) throws IOException, TransformerException
+    {
+        String key = schemaStore.createKey(schemaStoreLabel, contentHash, source.getNode(), phase, getLocationBaseURI(source), compilerSteps);
+        try (InputStream stored = schemaStore.open(key)) {
+            if (stored != null) {
+                return newTemplates(new StreamSource(stored, source.getSystemId()));
+            }
+        }
+
+        // The result of a chain of DOM sources is a DOM source
+        DOMSource stylesheet = (DOMSource)compileStylesheet(source);
+        schemaStore.put(key, stylesheet.getNode());
+        return newTemplates(stylesheet);
+    }
+
+    Source compileStylesheet (final Source schemaSource) throws IOException, TransformerException
+    {
+        Source source = schemaSource;
         for (Path step : compilerSteps) {
-            final Transformer transformer = transformerFactory.newTransformer(new StreamSource(Files.newInputStream(step), step.toString()));
-            final DOMResult result = new DOMResult();
+            final Transformer transformer = templatesCache.get(step).newTransformer();
+            final DOMResult result = new DOMResult(null, source.getSystemId());
             transformer.setErrorListener(errorListener);
+            if (uriResolver != null) {
+                transformer.setURIResolver(uriResolver);
+            }
             if (phase != null && !phase.isEmpty()) {
                 transformer.setParameter("phase", phase);
             }
             transformer.transform(source, result);
             source = new DOMSource(result.getNode(), result.getSystemId());
         }
-        return transformerFactory.newTransformer(source);
+        return source;
+    }
+
+    /*
+     * Compile schema by chaining the compiler steps as SAX filters that feed directly into the creation of the
+     * validating stylesheet.
+     *
+     * @return Templates
+     */
+    Templates compileStreaming (final Source source) throws IOException, TransformerException
+    {
+        Pipeline pipeline = newPipeline();
+        TemplatesHandler templatesHandler = pipeline.templatesHandler;
+        List<TransformerHandler> handlers = pipeline.handlers;
+
+        templatesHandler.setSystemId(source.getSystemId());
+
+        ContentHandler next = templatesHandler;
+        for (int i = handlers.size() - 1; i >= 0; i--) {
+            TransformerHandler handler = handlers.get(i);
+            handler.setSystemId(source.getSystemId());
+            handler.getTransformer().setErrorListener(errorListener);
+            if (uriResolver != null) {
+                handler.getTransformer().setURIResolver(uriResolver);
+            }
+            if (phase != null && !phase.isEmpty()) {
+                handler.getTransformer().setParameter("phase", phase);
+            }
+            handler.setResult(new SAXResult(next));
+            next = handler;
+        }
+
+        pipeline.parser.setErrorListener(errorListener);
+        pipeline.parser.transform(source, new SAXResult(next));
+
+        return templatesHandler.getTemplates();
+    }
+
+    /*
+     * The transformer factory is shared by all validations of a factory and is only locked if it is not thread-safe.
+     */
+    Pipeline newPipeline () throws IOException, TransformerException
+    {
+        if (templatesCache.isThreadSafe()) {
+            return createPipeline();
+        }
+        synchronized (transformerFactory) {
+            return createPipeline();
+        }
+    }
+
+    Pipeline createPipeline () throws IOException, TransformerException
+    {
+        SAXTransformerFactory saxTransformerFactory = (SAXTransformerFactory)transformerFactory;
+        List<TransformerHandler> handlers = new ArrayList<TransformerHandler>();
+        for (Path step : compilerSteps) {
+            handlers.add(saxTransformerFactory.newTransformerHandler(templatesCache.get(step)));
+        }
+        return new Pipeline(saxTransformerFactory.newTemplatesHandler(), saxTransformerFactory.newTransformer(), handlers);
+    }
+
+    /*
+     * The transformer factory is shared by all validations of a factory and is only locked if it is not thread-safe.
+     */
+    Templates newTemplates (final Source source) throws TransformerException
+    {
+        if (templatesCache.isThreadSafe()) {
+            return transformerFactory.newTemplates(source);
+        }
+        synchronized (transformerFactory) {
+            return transformerFactory.newTemplates(source);
+        }
+    }
+
+    /**
+     * Handlers of a streaming compilation.
+     *
+     */
+    static final class Pipeline
+    {
+        final TemplatesHandler templatesHandler;
+        final Transformer parser;
+        final List<TransformerHandler> handlers;
+
+        Pipeline (final TemplatesHandler templatesHandler, final Transformer parser, final List<TransformerHandler> handlers)
+        {
+            this.templatesHandler = templatesHandler;
+            this.parser = parser;
+            this.handlers = handlers;
+        }
     }
 }
@@ -24,6 +24,8 @@
 
 package name.dmaus.schxslt.testsuite;
 
+import java.io.IOException;
+
 import java.nio.file.Paths;
 import java.nio.file.Path;
 
@@ -41,17 +43,25 @@ public final class JavaValidationFactory implements ValidationFactory
     private final String[] features;
     private final List<String> compilerSteps;
     private final TransformerFactory transformerFactory;
+    private final TemplatesCache templatesCache;
+    private final SchemaCache schemaCache;
+    private final AvailabilityProbe availabilityProbe = new AvailabilityProbe(() -> true);
 
     private final String label;
     private final String queryBinding;
 
     private Path baseDirectory = Paths.get("").toAbsolutePath();
+    private boolean streamingPipeline;
+    private boolean schemaCaching = true;
+    private SchemaStore schemaStore;
 
     public JavaValidationFactory (final String label, final String queryBinding, final TransformerFactory transformerFactory, final String[] features, final List<String> compilerSteps)
     {
         this.label = label;
         this.queryBinding = queryBinding;
         this.transformerFactory = transformerFactory;
+        this.templatesCache = new TemplatesCache(transformerFactory);
+        this.schemaCache = new SchemaCache(queryBinding);
         this.compilerSteps = compilerSteps;
         this.features = features;
     }
@@ -61,6 +71,45 @@ public final class JavaValidationFactory implements ValidationFactory
         baseDirectory = basedir;
     }
 
+    public void setStreamingPipeline (final boolean streamingPipeline)
+    {
+        this.streamingPipeline = streamingPipeline;
+    }
+
+    /**
+     * Declare whether the transformer factory can compile stylesheets in several threads at once.
+     *
+     * <p>A factory that is not thread-safe is locked for every compilation, which serializes the compilation of
+     * validating stylesheets in parallel runs. Saxon's factories are declared thread-safe by default, all others
+     * are not.</p>
+     *
+     * @param threadSafe True if the transformer factory is thread-safe
+     */
+    public void setThreadSafeTransformerFactory (final boolean threadSafe)
+    {
+        templatesCache.setThreadSafe(threadSafe);
+    }
+
+    /**
+     * Share compiled schemas between validations with identical schemas.
+     *
+     * @param schemaCaching True to cache compiled schemas
+     */
+    public void setSchemaCaching (final boolean schemaCaching)
+    {
+        this.schemaCaching = schemaCaching;
+    }
+
+    /**
+     * Persist compiled schemas across runs.
+     *
+     * @param schemaStore Schema store or null to not persist compiled schemas
+     */
+    public void setSchemaStore (final SchemaStore schemaStore)
+    {
+        this.schemaStore = schemaStore;
+    }
+
     public String getLabel ()
     {
         return label;
@@ -73,16 +122,71 @@ public final class JavaValidationFactory implements ValidationFactory
 
     public boolean isAvailable ()
     {
-        return true;
+        return availabilityProbe.isAvailable();
+    }
+
+    public AvailabilityProbe getAvailabilityProbe ()
+    {
+        return availabilityProbe;
+    }
+
+    public String getFingerprint ()
+    {
+        return getFingerprint(baseDirectory);
+    }
+
+    public String getFingerprint (final Path basedir)
+    {
+        ContentDigest digest = new ContentDigest()
+            .update(label)
+            .update(queryBinding)
+            .update(transformerFactory.getClass().getName())
+            .update(String.join(",", features));
+        try {
+            for (Path step : getCompilerSteps(basedir)) {
+                digest.update(StylesheetDigest.digest(step));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return digest.toHex();
+    }
+
+    public SchemaCache getSchemaCache ()
+    {
+        if (schemaCaching) {
+            return schemaCache;
+        }
+        return null;
     }
 
     public JavaValidation newInstance ()
+    {
+        return newInstance(baseDirectory);
+    }
+
+    public JavaValidation newInstance (final Path basedir)
+    {
+        List<Path> steps = getCompilerSteps(basedir);
+
+        JavaValidation validation = new JavaValidation(transformerFactory, templatesCache, features, steps);
+        validation.setStreamingPipeline(streamingPipeline);
+        validation.setSchemaCache(getSchemaCache());
+        validation.setSchemaStore(schemaStore, label);
+        return validation;
+    }
+
+    List<Path> getCompilerSteps ()
+    {
+        return getCompilerSteps(baseDirectory);
+    }
+
+    List<Path> getCompilerSteps (final Path basedir)
     {
         List<Path> steps = new ArrayList<Path>();
         for (String step : compilerSteps) {
-            steps.add(baseDirectory.resolve(Paths.get(step)));
+            steps.add(basedir.resolve(Paths.get(step)));
         }
-
-        return new JavaValidation(transformerFactory, features, steps);
+        return steps;
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Write a report as JSON Lines.
+ *
+ * <p>Every result is written as a single JSON object on its own line and flushed immediately.</p>
+ *
+ */
+public final class JsonLinesReportSink implements ReportSink
+{
+    private static final int FIRST_PRINTABLE = 0x20;
+
+    private final Path file;
+
+    private String label;
+    private Writer out;
+
+    public JsonLinesReportSink (final Path file)
+    {
+        this.file = file.toAbsolutePath();
+    }
+
+    public void start (final Report report) throws IOException
+    {
+        label = report.getLabel();
+        Files.createDirectories(file.getParent());
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    public void write (final ValidationResult result) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        line.append('{');
+        appendMember(line, "testsuite", label).append(',');
+        appendMember(line, "id", result.getTestcase().getId()).append(',');
+        appendMember(line, "label", result.getTestcase().getLabel()).append(',');
+        appendMember(line, "status", result.getStatus().toString()).append(',');
+        appendMember(line, "message", result.getErrorMessage()).append(',');
+        line.append("\"reused\":").append(result.isReused()).append(',');
+        appendString(line, "timings").append(":{");
+        boolean first = true;
+        for (Timings.Phase phase : Timings.Phase.values()) {
+            if (result.getTimings().has(phase)) {
+                if (!first) {
+                    line.append(',');
+                }
+                appendString(line, phase.toString()).append(':').append(result.getTimings().get(phase));
+                first = false;
+            }
+        }
+        line.append("}}\n");
+        out.write(line.toString());
+        out.flush();
+    }
+
+    public void finish (final Report report) throws IOException
+    {
+        out.close();
+    }
+
+    static StringBuilder appendMember (final StringBuilder json, final String name, final String value)
+    {
+        appendString(json, name).append(':');
+        if (value == null) {
+            return json.append("null");
+        }
+        return appendString(json, value);
+    }
+
+    static StringBuilder appendString (final StringBuilder json, final String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c == '\n') {
+                json.append("\\n");
+            } else if (c == '\r') {
+                json.append("\\r");
+            } else if (c == '\t') {
+                json.append("\\t");
+            } else if (c < FIRST_PRINTABLE) {
+                json.append(String.format("\\u%04x", (int)c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
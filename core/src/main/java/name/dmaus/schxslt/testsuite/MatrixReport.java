@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.util.Date;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.LinkedHashMap;
+
+/**
+ * Collect the results of a testsuite executed by several processors.
+ *
+ * <p>The results form a grid with one row per testcase and one column per processor. The results of every processor
+ * are also available as an ordinary report.</p>
+ *
+ */
+public final class MatrixReport
+{
+    private static final int INITIAL_LOAD_DURATIONS = 64;
+
+    private final Date timestamp = new Date();
+    private final List<String> processors;
+    private final Map<String, Report> reports = new LinkedHashMap<String, Report>();
+    private final List<Row> rows = new ArrayList<Row>();
+
+    private long[] loadDurations = new long[INITIAL_LOAD_DURATIONS];
+    private int countLoadDurations;
+
+    private final String label;
+
+    MatrixReport (final String label, final List<String> processors)
+    {
+        this.label = label;
+        this.processors = Collections.unmodifiableList(new ArrayList<String>(processors));
+        for (String processor : processors) {
+            Report report = new Report();
+            report.setLabel(processor);
+            report.excludePhase(Timings.Phase.LOAD);
+            reports.put(processor, report);
+        }
+    }
+
+    /**
+     * Add the results of one testcase.
+     *
+     * @param results Results in the order of the processors
+     */
+    synchronized void addRow (final List<ValidationResult> results)
+    {
+        if (results.size() != processors.size()) {
+            throw new IllegalArgumentException("Expected " + processors.size() + " results but got " + results.size());
+        }
+        Map<String, ValidationResult> columns = new LinkedHashMap<String, ValidationResult>();
+        for (int i = 0; i < processors.size(); i++) {
+            columns.put(processors.get(i), results.get(i));
+            reports.get(processors.get(i)).addValidationResult(results.get(i));
+        }
+        Testcase testcase = results.get(0).getTestcase();
+        rows.add(new Row(testcase, columns));
+        if (testcase != null) {
+            addLoadDuration(testcase.getLoadDuration());
+        }
+    }
+
+    void addLoadDuration (final long duration)
+    {
+        if (countLoadDurations == loadDurations.length) {
+            loadDurations = Arrays.copyOf(loadDurations, loadDurations.length * 2);
+        }
+        loadDurations[countLoadDurations] = duration;
+        countLoadDurations++;
+    }
+
+    /**
+     * Return a percentile of the durations of loading the testcases.
+     *
+     * <p>All processors share the loaded testcases, so the load durations are recorded once for the matrix and not
+     * in the report of every processor.</p>
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Duration in nanoseconds or 0 if no testcase was loaded
+     */
+    public synchronized long getLoadPercentile (final double percentile)
+    {
+        return Report.getPercentile(loadDurations, countLoadDurations, percentile);
+    }
+
+    void start ()
+    {
+        for (Report report : reports.values()) {
+            report.start();
+        }
+    }
+
+    void finish ()
+    {
+        for (Report report : reports.values()) {
+            report.finish();
+        }
+    }
+
+    public List<String> getProcessors ()
+    {
+        return processors;
+    }
+
+    public Report getReport (final String processor)
+    {
+        return reports.get(processor);
+    }
+
+    public synchronized List<Row> getRows ()
+    {
+        return new ArrayList<Row>(rows);
+    }
+
+    public boolean hasFailures ()
+    {
+        for (Report report : reports.values()) {
+            if (report.hasFailures()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Date getTimestamp ()
+    {
+        return timestamp;
+    }
+
+    public String getLabel ()
+    {
+        return label;
+    }
+
+    /**
+     * The results of one testcase.
+     *
+     */
+    public static final class Row
+    {
+        private final Testcase testcase;
+        private final Map<String, ValidationResult> results;
+
+        Row (final Testcase testcase, final Map<String, ValidationResult> results)
+        {
+            this.testcase = testcase;
+            this.results = Collections.unmodifiableMap(results);
+        }
+
+        public String getTestcaseId ()
+        {
+            return testcase.getId();
+        }
+
+        public String getTestcaseLabel ()
+        {
+            return testcase.getLabel();
+        }
+
+        public ValidationResult getResult (final String processor)
+        {
+            return results.get(processor);
+        }
+
+        public Map<String, ValidationResult> getResults ()
+        {
+            return results;
+        }
+    }
+}
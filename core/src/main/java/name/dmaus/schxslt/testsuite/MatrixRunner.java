@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.LinkedHashMap;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.stream.Stream;
+
+/**
+ * Execute all tests of a testsuite with several processors.
+ *
+ * <p>The testsuite is loaded once. Every testcase is executed by all processors in turn, each one working on its own
+ * copy of the testcase. With a parallelism greater than 1 several testcases are executed concurrently.</p>
+ *
+ */
+public final class MatrixRunner
+{
+    private static final int QUEUED_PER_WORKER = 2;
+
+    private final Map<String, TestsuiteRunner> runners = new LinkedHashMap<String, TestsuiteRunner>();
+    private final Map<String, List<ReportSink>> sinks = new LinkedHashMap<String, List<ReportSink>>();
+
+    private int parallelism = 1;
+
+    /**
+     * Add a processor to the matrix.
+     *
+     * @param label Processor label
+     * @param driver Driver of the processor
+     */
+    public void addProcessor (final String label, final Driver driver)
+    {
+        addProcessor(label, driver, new ArrayList<String>());
+    }
+
+    /**
+     * Add a processor to the matrix.
+     *
+     * @param label Processor label
+     * @param driver Driver of the processor
+     * @param skipTestcaseIds Ids of testcases skipped by this processor
+     */
+    public void addProcessor (final String label, final Driver driver, final List<String> skipTestcaseIds)
+    {
+        if (runners.containsKey(label)) {
+            throw new IllegalArgumentException("Duplicate processor " + label);
+        }
+        runners.put(label, new TestsuiteRunner(driver, skipTestcaseIds));
+        sinks.put(label, new ArrayList<ReportSink>());
+    }
+
+    /**
+     * Add a sink that receives every result of a processor as soon as it is available.
+     *
+     * @param label Processor label
+     * @param sink Report sink
+     */
+    public void addReportSink (final String label, final ReportSink sink)
+    {
+        if (!sinks.containsKey(label)) {
+            throw new IllegalArgumentException("Unknown processor " + label);
+        }
+        sinks.get(label).add(sink);
+    }
+
+    /**
+     * Set the maximum number of testcases executed concurrently.
+     *
+     * @param parallelism Number of worker threads
+     */
+    public void setParallelism (final int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism ()
+    {
+        return parallelism;
+    }
+
+    public MatrixReport run (final Testsuite testsuite)
+    {
+        if (runners.isEmpty()) {
+            throw new IllegalStateException("No processors to run the testsuite");
+        }
+
+        MatrixReport report = new MatrixReport(testsuite.getLabel(), new ArrayList<String>(runners.keySet()));
+        for (Map.Entry<String, List<ReportSink>> processorSinks : sinks.entrySet()) {
+            for (ReportSink sink : processorSinks.getValue()) {
+                report.getReport(processorSinks.getKey()).addSink(sink);
+            }
+        }
+
+        report.start();
+        try (Stream<Testcase> testcases = testsuite.getTestcaseStream()) {
+            Iterator<Testcase> iterator = testcases.iterator();
+            if (parallelism > 1) {
+                runParallel(iterator, report);
+            } else {
+                while (iterator.hasNext()) {
+                    report.addRow(execute(iterator.next()));
+                }
+            }
+            for (Map.Entry<String, TestsuiteRunner> runner : runners.entrySet()) {
+                runner.getValue().collectStatistics(report.getReport(runner.getKey()));
+            }
+        } finally {
+            report.finish();
+        }
+        return report;
+    }
+
+    void runParallel (final Iterator<Testcase> testcases, final MatrixReport report)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Deque<Testcase> pendingTestcases = new ArrayDeque<Testcase>();
+            Deque<Future<List<ValidationResult>>> pendingResults = new ArrayDeque<Future<List<ValidationResult>>>();
+            while (testcases.hasNext()) {
+                Testcase testcase = testcases.next();
+                pendingTestcases.add(testcase);
+                pendingResults.add(executor.submit(() -> execute(testcase)));
+                if (pendingResults.size() >= parallelism * QUEUED_PER_WORKER) {
+                    report.addRow(awaitResults(pendingTestcases.remove(), pendingResults.remove()));
+                }
+            }
+            while (!pendingResults.isEmpty()) {
+                report.addRow(awaitResults(pendingTestcases.remove(), pendingResults.remove()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    List<ValidationResult> awaitResults (final Testcase testcase, final Future<List<ValidationResult>> future)
+    {
+        String errorMessage;
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            errorMessage = e.getCause().getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorMessage = "Interrupted while waiting for the testcase";
+        }
+        List<ValidationResult> results = new ArrayList<ValidationResult>();
+        for (int i = 0; i < runners.size(); i++) {
+            results.add(new ValidationResult(testcase, ValidationStatus.ERROR, null, errorMessage));
+        }
+        return results;
+    }
+
+    /*
+     * The processors of a single testcase run one after another because the testcase specification is a DOM
+     * document and DOM implementations are not required to be thread-safe, not even for reading.
+     */
+    List<ValidationResult> execute (final Testcase testcase)
+    {
+        List<ValidationResult> results = new ArrayList<ValidationResult>();
+        for (TestsuiteRunner runner : runners.values()) {
+            results.add(runner.execute(testcase.copy()));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Per-testcase timings of a run to compare later runs against.
+ *
+ * <p>The baseline collects the phase durations of every successful testcase as a report sink. It is stored as a Java
+ * properties file with one entry per testcase and phase, keyed <code>testcase-id.PHASE</code>.</p>
+ *
+ * <p>Comparing two baselines only considers testcases present in both. Besides every single testcase the per-phase
+ * aggregates and the suite total are compared.</p>
+ *
+ */
+public final class PerformanceBaseline implements ReportSink
+{
+    private static final double NANOS_PER_MILLISECOND = 1e6;
+    private static final double PERCENT = 100.0;
+
+    private final Map<String, Timings> testcases = new TreeMap<String, Timings>();
+
+    /**
+     * Load a stored baseline.
+     *
+     * @param file Baseline file
+     * @return Baseline
+     * @throws IOException Error reading the baseline
+     */
+    public static PerformanceBaseline load (final Path file) throws IOException
+    {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+
+        PerformanceBaseline baseline = new PerformanceBaseline();
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.lastIndexOf('.');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Invalid baseline entry " + key + " in " + file);
+            }
+            try {
+                Timings.Phase phase = Timings.Phase.valueOf(key.substring(separator + 1));
+                baseline.getTimings(key.substring(0, separator)).record(phase, Long.parseLong(properties.getProperty(key)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid baseline entry " + key + " in " + file, e);
+            }
+        }
+        return baseline;
+    }
+
+    public void start (final Report report)
+    {
+    }
+
+    public void write (final ValidationResult result)
+    {
+        record(result);
+    }
+
+    public void finish (final Report report)
+    {
+    }
+
+    /**
+     * Record the timings of a result.
+     *
+     * <p>Only successful testcases that were actually executed are recorded.</p>
+     *
+     * @param result Result
+     */
+    public synchronized void record (final ValidationResult result)
+    {
+        if (result.getStatus() != ValidationStatus.SUCCESS || result.getTimings() == null || result.getTimings().getTotal() == 0) {
+            return;
+        }
+        getTimings(result.getTestcase().getId()).add(result.getTimings());
+    }
+
+    public synchronized int countTestcases ()
+    {
+        return testcases.size();
+    }
+
+    /**
+     * Compare this run against a baseline.
+     *
+     * <p>A duration regresses if it exceeds the baseline by more than the relative tolerance <em>and</em> by more than
+     * the minimum difference. The minimum difference keeps the jitter of very short testcases from failing the
+     * comparison.</p>
+     *
+     * @param baseline Baseline
+     * @param tolerance Relative tolerance, e.g. 0.2 for 20 percent
+     * @param minimumDifference Minimum difference in nanoseconds
+     * @return Human readable description of every regression, empty if there are none
+     */
+    public synchronized List<String> compare (final PerformanceBaseline baseline, final double tolerance, final long minimumDifference)
+    {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative");
+        }
+
+        List<String> regressions = new ArrayList<String>();
+        Timings currentAggregate = new Timings();
+        Timings baselineAggregate = new Timings();
+        synchronized (baseline) {
+            for (Map.Entry<String, Timings> entry : testcases.entrySet()) {
+                Timings previous = baseline.testcases.get(entry.getKey());
+                if (previous != null) {
+                    compare(regressions, "Testcase " + entry.getKey(), previous.getTotal(), entry.getValue().getTotal(), tolerance, minimumDifference);
+                    currentAggregate.add(entry.getValue());
+                    baselineAggregate.add(previous);
+                }
+            }
+        }
+        for (Timings.Phase phase : Timings.Phase.values()) {
+            compare(regressions, "Phase " + phase, baselineAggregate.get(phase), currentAggregate.get(phase), tolerance, minimumDifference);
+        }
+        compare(regressions, "Testsuite total", baselineAggregate.getTotal(), currentAggregate.getTotal(), tolerance, minimumDifference);
+        return regressions;
+    }
+
+    /**
+     * Write the baseline.
+     *
+     * @param file Baseline file
+     * @throws IOException Error writing the baseline
+     */
+    public synchronized void save (final Path file) throws IOException
+    {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Timings> entry : testcases.entrySet()) {
+            for (Timings.Phase phase : Timings.Phase.values()) {
+                if (entry.getValue().has(phase)) {
+                    properties.setProperty(entry.getKey() + "." + phase, String.valueOf(entry.getValue().get(phase)));
+                }
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "baseline", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Phase durations in nanoseconds of successful testcases");
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Timings getTimings (final String testcaseId)
+    {
+        Timings timings = testcases.get(testcaseId);
+        if (timings == null) {
+            timings = new Timings();
+            testcases.put(testcaseId, timings);
+        }
+        return timings;
+    }
+
+    private static void compare (final List<String> regressions, final String subject, final long previous, final long current, final double tolerance, final long minimumDifference)
+    {
+        long difference = current - previous;
+        if (difference > minimumDifference && current > previous * (1 + tolerance)) {
+            regressions.add(String.format("%s: %.3f ms -> %.3f ms (+%.1f%%)", subject,
+                                          previous / NANOS_PER_MILLISECOND,
+                                          current / NANOS_PER_MILLISECOND,
+                                          difference * PERCENT / Math.max(previous, 1)));
+        }
+    }
+}
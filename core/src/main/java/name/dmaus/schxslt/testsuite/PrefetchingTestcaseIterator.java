@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.nio.file.Path;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Load testcases ahead of their consumption on a fork-join pool.
+ *
+ * <p>At most a fixed number of testcases is loaded ahead. Testcases are returned in the order of their files.</p>
+ *
+ */
+final class PrefetchingTestcaseIterator implements Iterator<Testcase>, AutoCloseable
+{
+    private static final int LOADED_AHEAD_PER_THREAD = 2;
+
+    private final TestcaseLoader loader;
+    private final Iterator<Path> files;
+    private final ForkJoinPool pool;
+    private final int lookahead;
+    private final Deque<Future<Testcase>> pending = new ArrayDeque<Future<Testcase>>();
+
+    PrefetchingTestcaseIterator (final TestcaseLoader loader, final Iterator<Path> files, final int parallelism)
+    {
+        this.loader = loader;
+        this.files = files;
+        this.pool = new ForkJoinPool(parallelism);
+        this.lookahead = parallelism * LOADED_AHEAD_PER_THREAD;
+    }
+
+    public boolean hasNext ()
+    {
+        prefetch();
+        return !pending.isEmpty();
+    }
+
+    public Testcase next ()
+    {
+        prefetch();
+        if (pending.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return await(pending.remove());
+    }
+
+    public void close ()
+    {
+        pool.shutdownNow();
+    }
+
+    void prefetch ()
+    {
+        while (pending.size() < lookahead && files.hasNext()) {
+            final Path file = files.next();
+            pending.add(pool.submit(() -> loader.load(file)));
+        }
+    }
+
+    Testcase await (final Future<Testcase> future)
+    {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading testcases", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.util.Set;
+import java.util.HashSet;
+
+/**
+ * Tracks the child processes started on behalf of a testcase.
+ *
+ * <p>The tracker is bound to the thread executing the testcase. A watchdog thread can destroy all tracked processes
+ * when the testcase times out. Processes registered after that are destroyed immediately.</p>
+ *
+ */
+final class ProcessTracker
+{
+    private static final ThreadLocal<ProcessTracker> CURRENT = new ThreadLocal<ProcessTracker>();
+
+    private final Set<Process> processes = new HashSet<Process>();
+    private boolean destroyed;
+
+    static void setCurrent (final ProcessTracker tracker)
+    {
+        if (tracker == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tracker);
+        }
+    }
+
+    /**
+     * Track the process if the current thread is bound to a tracker.
+     *
+     * @param process Child process
+     */
+    static void register (final Process process)
+    {
+        ProcessTracker tracker = CURRENT.get();
+        if (tracker != null) {
+            tracker.add(process);
+        }
+    }
+
+    static void unregister (final Process process)
+    {
+        ProcessTracker tracker = CURRENT.get();
+        if (tracker != null) {
+            tracker.remove(process);
+        }
+    }
+
+    synchronized void add (final Process process)
+    {
+        if (destroyed) {
+            process.destroyForcibly();
+        } else {
+            processes.add(process);
+        }
+    }
+
+    synchronized void remove (final Process process)
+    {
+        processes.remove(process);
+    }
+
+    /**
+     * Forcibly destroy all tracked processes.
+     *
+     */
+    synchronized void destroyAll ()
+    {
+        destroyed = true;
+        for (Process process : processes) {
+            process.destroyForcibly();
+        }
+        processes.clear();
+    }
+}
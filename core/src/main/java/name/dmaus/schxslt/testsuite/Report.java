@@ -24,28 +24,68 @@
 
 package name.dmaus.schxslt.testsuite;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import java.util.Date;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 /**
  * Collect information about testcase executions.
  *
+ * <p>Results may be added from concurrently running testcases. Every result is passed on to the report sinks as soon
+ * as it is added. If results are not retained only the counts and durations are kept, so that the testcases of
+ * completed results can be garbage collected.</p>
+ *
  */
 public final class Report
 {
+    private static final double PERCENT = 100.0;
+    private static final int INITIAL_DURATIONS = 64;
+    private static final double NANOS_PER_SECOND = 1e9;
+
     private final Date timestamp = new Date();
     private final List<ValidationResult> results = new ArrayList<ValidationResult>();
+    private final List<ReportSink> sinks = new ArrayList<ReportSink>();
+    private final long[][] durations = new long[Timings.Phase.values().length][INITIAL_DURATIONS];
+    private final int[] countDurations = new int[Timings.Phase.values().length];
+    private final Set<Timings.Phase> excludedPhases = EnumSet.noneOf(Timings.Phase.class);
+
+    private boolean retainResults = true;
 
     private int countSuccess;
     private int countFailure;
     private int countSkipped;
     private int countError;
+    private int countTimeout;
+    private int countCancelled;
+    private int countTotal;
 
     private String label;
+    private String stopReason;
+
+    private int countAvailabilityProbes;
+    private long availabilityProbeDuration;
+
+    private int countSchemaCacheHits;
+    private int countSchemaCacheMisses;
+
+    private int countWorkspaces;
+    private int countKeptWorkspaces;
+    private long workspaceSize;
+    private long largestWorkspaceSize;
 
-    public void addValidationResult (final ValidationResult result)
+    private int countReused;
+
+    private long validatedBytes;
+    private long validatedBytesDuration;
+
+    public synchronized void addValidationResult (final ValidationResult result)
     {
         switch (result.getStatus()) {
         case SUCCESS:
@@ -57,42 +97,342 @@ public final class Report
         case ERROR:
             countError++;
             break;
+        case TIMEOUT:
+            countTimeout++;
+            break;
+        case CANCELLED:
+            countCancelled++;
+            break;
         default:
             countFailure++;
         }
-        results.add(result);
+        countTotal++;
+        for (Timings.Phase phase : Timings.Phase.values()) {
+            if (result.getTimings().has(phase) && !excludedPhases.contains(phase)) {
+                addDuration(phase, result.getTimings().get(phase));
+            }
+        }
+        Testcase testcase = result.getTestcase();
+        if (testcase != null && testcase.getDocumentSize() > 0 && result.getTimings().has(Timings.Phase.VALIDATE)) {
+            validatedBytes = validatedBytes + testcase.getDocumentSize();
+            validatedBytesDuration = validatedBytesDuration + result.getTimings().get(Timings.Phase.VALIDATE);
+        }
+        if (retainResults) {
+            results.add(result);
+        }
+        try {
+            for (ReportSink sink : sinks) {
+                sink.write(result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Keep the added results in memory.
+     *
+     * @param retainResults False to only keep counts and durations
+     */
+    public synchronized void setRetainResults (final boolean retainResults)
+    {
+        this.retainResults = retainResults;
+    }
+
+    public synchronized boolean isRetainResults ()
+    {
+        return retainResults;
+    }
+
+    public synchronized void addSink (final ReportSink sink)
+    {
+        sinks.add(sink);
+    }
+
+    synchronized void start ()
+    {
+        try {
+            for (ReportSink sink : sinks) {
+                sink.start(this);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    public List<ValidationResult> getValidationResults ()
+    synchronized void finish ()
     {
-        return results;
+        try {
+            for (ReportSink sink : sinks) {
+                sink.finish(this);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void addDuration (final Timings.Phase phase, final long duration)
+    {
+        int index = phase.ordinal();
+        if (countDurations[index] == durations[index].length) {
+            durations[index] = Arrays.copyOf(durations[index], durations[index].length * 2);
+        }
+        durations[index][countDurations[index]] = duration;
+        countDurations[index]++;
+    }
+
+    /**
+     * Return the retained results.
+     *
+     * @return Results or an empty list if results are not retained
+     */
+    public synchronized List<ValidationResult> getValidationResults ()
+    {
+        return new ArrayList<ValidationResult>(results);
     }
 
-    public int countSkipped ()
+    public synchronized int countSkipped ()
     {
         return countSkipped;
     }
 
-    public int countSuccess ()
+    /**
+     * Return the number of testcases that did not finish within the timeout.
+     *
+     * @return Number of timed out testcases
+     */
+    public synchronized int countTimeout ()
+    {
+        return countTimeout;
+    }
+
+    /**
+     * Return true if a testcase failed, raised an error or timed out.
+     *
+     * @return True if the testsuite did not pass
+     */
+    public synchronized boolean hasFailures ()
+    {
+        return countFailure > 0 || countError > 0 || countTimeout > 0;
+    }
+
+    /**
+     * Return why the run stopped early.
+     *
+     * <p>Testcases that were not executed because of the stop are reported as CANCELLED.</p>
+     *
+     * @return Reason or null if the run was not stopped early
+     */
+    public synchronized String getStopReason ()
+    {
+        return stopReason;
+    }
+
+    synchronized void setStopReason (final String stopReason)
+    {
+        this.stopReason = stopReason;
+    }
+
+    /**
+     * Return the number of testcases that were not reached because the run was stopped early.
+     *
+     * @return Number of cancelled testcases
+     */
+    public synchronized int countCancelled ()
+    {
+        return countCancelled;
+    }
+
+    public synchronized int countSuccess ()
     {
         return countSuccess;
     }
 
-    public int countFailure ()
+    public synchronized int countFailure ()
     {
         return countFailure;
     }
 
-    public int countTotal ()
+    public synchronized int countTotal ()
     {
-        return results.size();
+        return countTotal;
     }
 
-    public int countError ()
+    public synchronized int countError ()
     {
         return countError;
     }
 
+    public synchronized void setAvailabilityProbe (final AvailabilityProbe probe)
+    {
+        countAvailabilityProbes = probe.countProbes();
+        availabilityProbeDuration = probe.getTotalDuration();
+    }
+
+    public synchronized int countAvailabilityProbes ()
+    {
+        return countAvailabilityProbes;
+    }
+
+    /**
+     * Return the accumulated time spent probing the availability of the validation.
+     *
+     * @return Duration in nanoseconds
+     */
+    public synchronized long getAvailabilityProbeDuration ()
+    {
+        return availabilityProbeDuration;
+    }
+
+    public synchronized void setSchemaCache (final SchemaCache schemaCache)
+    {
+        countSchemaCacheHits = schemaCache.countHits();
+        countSchemaCacheMisses = schemaCache.countMisses();
+    }
+
+    public synchronized int countSchemaCacheHits ()
+    {
+        return countSchemaCacheHits;
+    }
+
+    public synchronized int countSchemaCacheMisses ()
+    {
+        return countSchemaCacheMisses;
+    }
+
+    public synchronized void setWorkspaceManager (final WorkspaceManager workspaceManager)
+    {
+        countWorkspaces = workspaceManager.countWorkspaces();
+        countKeptWorkspaces = workspaceManager.countKept();
+        workspaceSize = workspaceManager.getTotalSize();
+        largestWorkspaceSize = workspaceManager.getLargestSize();
+    }
+
+    /**
+     * Return the number of bytes of primary documents that were validated from disk.
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getValidatedBytes ()
+    {
+        return validatedBytes;
+    }
+
+    /**
+     * Return the validation throughput over all primary documents that were validated from disk.
+     *
+     * @return Bytes per second or 0 if no document was validated from disk
+     */
+    public synchronized double getThroughput ()
+    {
+        if (validatedBytesDuration == 0) {
+            return 0;
+        }
+        return validatedBytes / (validatedBytesDuration / NANOS_PER_SECOND);
+    }
+
+    public synchronized void setResultManifest (final ResultManifest manifest)
+    {
+        countReused = manifest.countReused();
+    }
+
+    /**
+     * Return the number of testcases whose result was taken from the previous run.
+     *
+     * @return Number of unchanged testcases
+     */
+    public synchronized int countReused ()
+    {
+        return countReused;
+    }
+
+    public synchronized int countWorkspaces ()
+    {
+        return countWorkspaces;
+    }
+
+    public synchronized int countKeptWorkspaces ()
+    {
+        return countKeptWorkspaces;
+    }
+
+    /**
+     * Return the number of bytes written to testcase workspaces.
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getWorkspaceSize ()
+    {
+        return workspaceSize;
+    }
+
+    /**
+     * Return the number of bytes of the largest testcase workspace.
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getLargestWorkspaceSize ()
+    {
+        return largestWorkspaceSize;
+    }
+
+    /**
+     * Leave the durations of a phase out of this report.
+     *
+     * @param phase Phase whose durations are accounted for elsewhere
+     */
+    synchronized void excludePhase (final Timings.Phase phase)
+    {
+        excludedPhases.add(phase);
+    }
+
+    /**
+     * Return true if the durations of a phase are part of this report.
+     *
+     * @param phase Phase
+     * @return True if the durations of the phase are recorded
+     */
+    public synchronized boolean isPhaseRecorded (final Timings.Phase phase)
+    {
+        return !excludedPhases.contains(phase);
+    }
+
+    /**
+     * Return a percentile of the durations of a phase over all testcases that reached the phase.
+     *
+     * <p>Uses the nearest-rank method.</p>
+     *
+     * @param phase Phase
+     * @param percentile Percentile between 0 and 100
+     * @return Duration in nanoseconds or 0 if no testcase reached the phase
+     */
+    public synchronized long getPercentile (final Timings.Phase phase, final double percentile)
+    {
+        return getPercentile(durations[phase.ordinal()], countDurations[phase.ordinal()], percentile);
+    }
+
+    /**
+     * Return a percentile of the first values of an array using the nearest-rank method.
+     *
+     * @param values Values
+     * @param count Number of values to consider
+     * @param percentile Percentile between 0 and 100
+     * @return Value at the percentile or 0 if there are no values
+     */
+    static long getPercentile (final long[] values, final int count, final double percentile)
+    {
+        if (percentile < 0 || percentile > PERCENT) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int rank = (int)Math.ceil(percentile / PERCENT * count);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
     public Date getTimestamp ()
     {
         return timestamp;
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+
+/**
+ * Receive testcase results as soon as they are available.
+ *
+ * <p>A sink is started before the first result and finished after the last result of a report. Results are written
+ * one at a time and in testsuite order.</p>
+ *
+ */
+public interface ReportSink
+{
+    /**
+     * Start writing a report.
+     *
+     * @param report Report without results
+     * @throws IOException Error writing the report
+     */
+    void start (Report report) throws IOException;
+
+    /**
+     * Write a single result.
+     *
+     * @param result Result
+     * @throws IOException Error writing the report
+     */
+    void write (ValidationResult result) throws IOException;
+
+    /**
+     * Finish writing a report and release all resources.
+     *
+     * @param report Report with final counts and statistics
+     * @throws IOException Error writing the report
+     */
+    void finish (Report report) throws IOException;
+}
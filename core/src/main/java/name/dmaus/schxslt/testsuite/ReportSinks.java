@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.nio.file.Path;
+
+/**
+ * Create report sinks.
+ *
+ */
+public final class ReportSinks
+{
+    private ReportSinks ()
+    {
+    }
+
+    /**
+     * Return a sink writing to a file in the format indicated by the file extension.
+     *
+     * <p>Files ending in .jsonl or .json are written as JSON Lines, all other files as JUnit XML.</p>
+     *
+     * @param file Report file
+     * @return Report sink
+     */
+    public static ReportSink createFileSink (final Path file)
+    {
+        String filename = file.getFileName().toString();
+        if (filename.endsWith(".jsonl") || filename.endsWith(".json")) {
+            return new JsonLinesReportSink(file);
+        }
+        return new JUnitReportSink(file);
+    }
+}
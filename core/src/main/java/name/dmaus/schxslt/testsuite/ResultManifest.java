@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Properties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persisted results of a previous run.
+ *
+ * <p>The manifest remembers the testcases that succeeded, keyed by the hash of the testcase specification and the
+ * fingerprint of the processor. A testcase whose key is found in the manifest is unchanged and need not be executed
+ * again. Failed testcases are always executed again.</p>
+ *
+ * <p>Saving the manifest only keeps the entries of the current run, so stale entries do not accumulate. The file is a
+ * Java properties file and written atomically.</p>
+ *
+ */
+public final class ResultManifest
+{
+    private final Path file;
+    private final Properties previous = new Properties();
+    private final Properties current = new Properties();
+    private final AtomicInteger countReused = new AtomicInteger();
+
+    public ResultManifest (final String file)
+    {
+        this(Paths.get(file));
+    }
+
+    public ResultManifest (final Path file)
+    {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                previous.load(in);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    String createKey (final Testcase testcase, final String fingerprint)
+    {
+        return new ContentDigest()
+            .update(testcase.getId())
+            .update(testcase.getContentHash())
+            .update(fingerprint)
+            .toHex();
+    }
+
+    /**
+     * Return true if the testcase succeeded in the previous run and did not change since.
+     *
+     * @param key Key of the testcase
+     * @return True if the testcase is unchanged
+     */
+    boolean isUnchanged (final String key)
+    {
+        if (ValidationStatus.SUCCESS.name().equals(previous.getProperty(key))) {
+            countReused.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the result of a testcase.
+     *
+     * <p>A testcase that was not reached keeps its previous entry.</p>
+     *
+     * @param key Key of the testcase
+     * @param result Result
+     */
+    void record (final String key, final ValidationResult result)
+    {
+        if (result.getStatus() == ValidationStatus.SUCCESS) {
+            current.setProperty(key, result.getStatus().name());
+        } else if (result.getStatus() == ValidationStatus.CANCELLED && previous.containsKey(key)) {
+            current.setProperty(key, previous.getProperty(key));
+        }
+    }
+
+    public int countReused ()
+    {
+        return countReused.get();
+    }
+
+    /**
+     * Write the manifest of the current run.
+     *
+     * @throws IOException Error writing the manifest
+     */
+    public void save () throws IOException
+    {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "manifest", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            current.store(out, "Testcases that succeeded in the last run");
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import java.util.List;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Templates;
+
+import org.w3c.dom.Node;
+
+/**
+ * Content addressed cache of compiled schemas.
+ *
+ * <p>The validating stylesheet is keyed by a hash of the serialized schema, the query binding, the phase and the
+ * contents of the compiler steps including the modules they import. Testcases with identical schemas share a single
+ * compilation. A schema that refers to documents relative to its own location also hashes its base URI.</p>
+ *
+ */
+public final class SchemaCache
+{
+    private final ConcurrentMap<String, Templates> entries = new ConcurrentHashMap<String, Templates>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private final String queryBinding;
+
+    public SchemaCache (final String queryBinding)
+    {
+        this.queryBinding = queryBinding;
+    }
+
+    /**
+     * Return the key of a schema.
+     *
+     * @param schema Schema document or element
+     * @param phase Validation phase, if any
+     * @param baseURI Base URI of the schema or null if the compilation does not depend on it
+     * @param compilerSteps Compiler steps
+     * @return Key
+     * @throws IOException Error accessing a compiler step
+     */
+    String createKey (final Node schema, final String phase, final String baseURI, final List<Path> compilerSteps) throws IOException
+    {
+        ContentDigest digest = new ContentDigest();
+        digest.update(queryBinding).update(phase).update(baseURI);
+        for (Path step : compilerSteps) {
+            digest.update(StylesheetDigest.digest(step));
+        }
+        return digest.update(schema).toHex();
+    }
+
+    Templates get (final String key)
+    {
+        Templates templates = entries.get(key);
+        if (templates == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return templates;
+    }
+
+    void put (final String key, final Templates templates)
+    {
+        entries.put(key, templates);
+    }
+
+    public int countHits ()
+    {
+        return hits.get();
+    }
+
+    public int countMisses ()
+    {
+        return misses.get();
+    }
+
+    public int size ()
+    {
+        return entries.size();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.w3c.dom.Node;
+
+/**
+ * Persistent cache of compiled validation stylesheets.
+ *
+ * <p>Stylesheets are stored as files in a directory that survives the current run and can be shared by several
+ * processors. A stylesheet is keyed by a hash of the processor label, the testcase, the schema, the phase and the
+ * contents of the compiler steps including the modules they import. The testcase hash covers the secondary documents
+ * a schema may include. Stored stylesheets are evicted when they were not used for longer than the maximum age or, oldest
+ * first, when the directory exceeds the maximum size.</p>
+ *
+ */
+public final class SchemaStore
+{
+    private static final String SUFFIX = ".xsl";
+
+    private final ThreadLocal<XMLSerializer> serializer = ThreadLocal.withInitial(XMLSerializer::new);
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private final Path directory;
+
+    private long maxSize;
+    private long maxAge;
+
+    public SchemaStore (final Path directory)
+    {
+        this.directory = directory;
+    }
+
+    public SchemaStore (final String directory)
+    {
+        this(Paths.get(directory));
+    }
+
+    /**
+     * Set the maximum accumulated size of the stored stylesheets.
+     *
+     * @param maxSize Size in bytes, 0 for no limit
+     */
+    public void setMaxSize (final long maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Set the maximum time a stored stylesheet is kept without being used.
+     *
+     * @param maxAge Age in milliseconds, 0 for no limit
+     */
+    public void setMaxAge (final long maxAge)
+    {
+        this.maxAge = maxAge;
+    }
+
+    public Path getDirectory ()
+    {
+        return directory;
+    }
+
+    String createKey (final String label, final String contentHash, final Node schema, final String phase, final String baseURI, final List<Path> compilerSteps) throws IOException
+    {
+        ContentDigest digest = new ContentDigest();
+        digest.update(label).update(contentHash).update(phase).update(baseURI);
+        for (Path step : compilerSteps) {
+            digest.update(StylesheetDigest.digest(step));
+        }
+        return digest.update(schema).toHex();
+    }
+
+    String createKey (final String label, final String contentHash, final Path schema, final String phase, final List<Path> compilerSteps) throws IOException
+    {
+        ContentDigest digest = new ContentDigest();
+        digest.update(label).update(contentHash).update(phase).update((String)null);
+        for (Path step : compilerSteps) {
+            digest.update(StylesheetDigest.digest(step));
+        }
+        return digest.update(schema).toHex();
+    }
+
+    /**
+     * Open a stored stylesheet.
+     *
+     * @param key Key
+     * @return Input stream or null if there is no current stylesheet with this key
+     * @throws IOException Error reading the stylesheet
+     */
+    InputStream open (final String key) throws IOException
+    {
+        Path file = directory.resolve(key + SUFFIX);
+        try {
+            if (isExpired(Files.getLastModifiedTime(file))) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                InputStream in = Files.newInputStream(file);
+                hits.incrementAndGet();
+                return in;
+            }
+        } catch (NoSuchFileException e) {
+            // Not stored or evicted in the meantime
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put (final String key, final Node stylesheet) throws IOException
+    {
+        Path temp = createTempFile();
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            serializer.get().serialize(stylesheet, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        store(key, temp);
+    }
+
+    void put (final String key, final Path stylesheet) throws IOException
+    {
+        Path temp = createTempFile();
+        Files.copy(stylesheet, temp, StandardCopyOption.REPLACE_EXISTING);
+        store(key, temp);
+    }
+
+    public int countHits ()
+    {
+        return hits.get();
+    }
+
+    public int countMisses ()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Remove stylesheets exceeding the maximum age or size.
+     *
+     * @throws IOException Error accessing the store directory
+     */
+    public synchronized void evict () throws IOException
+    {
+        if (maxAge <= 0 && maxSize <= 0) {
+            return;
+        }
+
+        List<StoredFile> files = new ArrayList<StoredFile>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : entries) {
+                try {
+                    files.add(new StoredFile(entry, Files.readAttributes(entry, BasicFileAttributes.class)));
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+            }
+        }
+        files.sort(Comparator.comparing(StoredFile::getLastModifiedTime).reversed());
+
+        long size = 0;
+        for (StoredFile file : files) {
+            size = size + file.getSize();
+            if (isExpired(file.getLastModifiedTime()) || (maxSize > 0 && size > maxSize)) {
+                Files.deleteIfExists(file.getPath());
+            }
+        }
+    }
+
+    boolean isExpired (final FileTime lastModified)
+    {
+        return maxAge > 0 && System.currentTimeMillis() - lastModified.toMillis() > maxAge;
+    }
+
+    Path createTempFile () throws IOException
+    {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "store", ".tmp");
+    }
+
+    /*
+     * The stylesheet is written to a temporary file first and moved in place so that concurrent readers never see
+     * partially written stylesheets.
+     */
+    void store (final String key, final Path temp) throws IOException
+    {
+        Path target = directory.resolve(key + SUFFIX);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        evict();
+    }
+
+    /**
+     * Stored stylesheet and its attributes.
+     *
+     */
+    static final class StoredFile
+    {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+
+        StoredFile (final Path path, final BasicFileAttributes attributes)
+        {
+            this.path = path;
+            this.attributes = attributes;
+        }
+
+        Path getPath ()
+        {
+            return path;
+        }
+
+        long getSize ()
+        {
+            return attributes.size();
+        }
+
+        FileTime getLastModifiedTime ()
+        {
+            return attributes.lastModifiedTime();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.URI;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Hash a stylesheet together with all modules it imports or includes.
+ *
+ * <p>Modules are followed transitively and hashed by content in document order. The hash of a stylesheet is
+ * remembered as long as none of its modules is modified, created or removed.</p>
+ *
+ */
+final class StylesheetDigest
+{
+    private static final String NSXSL = "http://www.w3.org/1999/XSL/Transform";
+    private static final long MISSING = -1;
+
+    private static final ConcurrentMap<Path, Entry> DIGESTS = new ConcurrentHashMap<Path, Entry>();
+
+    private StylesheetDigest ()
+    {
+    }
+
+    /**
+     * Return the hash of a stylesheet and its modules.
+     *
+     * @param stylesheet Stylesheet
+     * @return Hexadecimal hash
+     * @throws IOException Error reading the stylesheet or a module
+     */
+    static String digest (final Path stylesheet) throws IOException
+    {
+        Path path = stylesheet.toAbsolutePath().normalize();
+        Entry entry = DIGESTS.get(path);
+        if (entry == null || !entry.isCurrent()) {
+            entry = compute(path);
+            DIGESTS.put(path, entry);
+        }
+        return entry.digest;
+    }
+
+    static Entry compute (final Path stylesheet) throws IOException
+    {
+        Map<Path, Long> modules = new LinkedHashMap<Path, Long>();
+        ContentDigest digest = new ContentDigest();
+        add(stylesheet, modules, digest);
+        return new Entry(modules, digest.toHex());
+    }
+
+    static void add (final Path module, final Map<Path, Long> modules, final ContentDigest digest) throws IOException
+    {
+        if (modules.containsKey(module)) {
+            return;
+        }
+        modules.put(module, Files.getLastModifiedTime(module).toMillis());
+        digest.update(module);
+        for (String href : findModules(module)) {
+            URI uri = module.toUri().resolve(href);
+            if (!"file".equals(uri.getScheme())) {
+                digest.update(href);
+            } else if (Files.isRegularFile(Paths.get(uri))) {
+                add(Paths.get(uri).normalize(), modules, digest);
+            } else {
+                modules.put(Paths.get(uri).normalize(), MISSING);
+                digest.update(href);
+            }
+        }
+    }
+
+    /*
+     * Parsing a module that is not well-formed stops at the first error. Compiling it fails anyway.
+     */
+    static List<String> findModules (final Path module) throws IOException
+    {
+        final List<String> hrefs = new ArrayList<String>();
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try (InputStream in = Files.newInputStream(module)) {
+            factory.newSAXParser().parse(in, new DefaultHandler() {
+                    @Override
+                    public void startElement (final String uri, final String localName, final String qName, final Attributes attributes)
+                    {
+                        if (NSXSL.equals(uri) && ("import".equals(localName) || "include".equals(localName)) && attributes.getValue("href") != null) {
+                            hrefs.add(attributes.getValue("href"));
+                        }
+                    }
+                });
+        } catch (SAXException | ParserConfigurationException e) {
+            return hrefs;
+        }
+        return hrefs;
+    }
+
+    /**
+     * Hash of a stylesheet and the modification times of its modules.
+     *
+     */
+    static final class Entry
+    {
+        private final Map<Path, Long> modules;
+        private final String digest;
+
+        Entry (final Map<Path, Long> modules, final String digest)
+        {
+            this.modules = modules;
+            this.digest = digest;
+        }
+
+        boolean isCurrent () throws IOException
+        {
+            for (Map.Entry<Path, Long> module : modules.entrySet()) {
+                long lastModified;
+                try {
+                    lastModified = Files.getLastModifiedTime(module.getKey()).toMillis();
+                } catch (NoSuchFileException e) {
+                    lastModified = MISSING;
+                }
+                if (lastModified != module.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
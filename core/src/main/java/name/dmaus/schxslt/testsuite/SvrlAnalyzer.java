@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.w3c.dom.Document;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compute the verdict of a SVRL report.
+ *
+ * <p>The analyzer either receives the report as a stream of SAX events or scans a report that was built as a
+ * document. A report is valid if it contains neither failed asserts nor successful reports.</p>
+ *
+ */
+final class SvrlAnalyzer extends DefaultHandler
+{
+    static final String NSSVRL = "http://purl.oclc.org/dsdl/svrl";
+
+    private static final String FAILED_ASSERT = "failed-assert";
+    private static final String SUCCESSFUL_REPORT = "successful-report";
+
+    private int countFailedAsserts;
+    private int countSuccessfulReports;
+
+    public void startDocument ()
+    {
+        countFailedAsserts = 0;
+        countSuccessfulReports = 0;
+    }
+
+    public void startElement (final String uri, final String localName, final String qName, final Attributes attributes)
+    {
+        if (NSSVRL.equals(uri)) {
+            if (FAILED_ASSERT.equals(localName)) {
+                countFailedAsserts++;
+            } else if (SUCCESSFUL_REPORT.equals(localName)) {
+                countSuccessfulReports++;
+            }
+        }
+    }
+
+    void analyze (final Document report)
+    {
+        countFailedAsserts = report.getElementsByTagNameNS(NSSVRL, FAILED_ASSERT).getLength();
+        countSuccessfulReports = report.getElementsByTagNameNS(NSSVRL, SUCCESSFUL_REPORT).getLength();
+    }
+
+    int countFailedAsserts ()
+    {
+        return countFailedAsserts;
+    }
+
+    int countSuccessfulReports ()
+    {
+        return countSuccessfulReports;
+    }
+
+    boolean isValid ()
+    {
+        return countFailedAsserts + countSuccessfulReports == 0;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.InputStream;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Cache of compiled stylesheets.
+ *
+ * <p>Stylesheets are keyed by their path and recompiled when the modification time changes. The cached
+ * Templates are thread-safe and can be shared by all validations of a factory.</p>
+ *
+ * <p>JAXP does not require a transformer factory to be thread-safe. Unless the factory is declared thread-safe, all
+ * compilations with the factory are serialized on it. Saxon's factories are thread-safe and declared so by
+ * default.</p>
+ *
+ */
+final class TemplatesCache
+{
+    private final ConcurrentMap<Path, CacheEntry> entries = new ConcurrentHashMap<Path, CacheEntry>();
+    private final TransformerFactory transformerFactory;
+
+    private volatile boolean threadSafe;
+
+    TemplatesCache (final TransformerFactory transformerFactory)
+    {
+        this.transformerFactory = transformerFactory;
+        this.threadSafe = transformerFactory.getClass().getName().startsWith("net.sf.saxon.");
+    }
+
+    /**
+     * Declare whether the transformer factory can compile stylesheets in several threads at once.
+     *
+     * @param threadSafe True if the factory is thread-safe
+     */
+    void setThreadSafe (final boolean threadSafe)
+    {
+        this.threadSafe = threadSafe;
+    }
+
+    boolean isThreadSafe ()
+    {
+        return threadSafe;
+    }
+
+    Templates get (final Path stylesheet) throws IOException, TransformerException
+    {
+        Path key = stylesheet.toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(key);
+
+        CacheEntry entry = entries.get(key);
+        if ((entry == null || !entry.isCurrent(modified)) && threadSafe) {
+            // A stylesheet requested by several threads at once may be compiled more than once
+            entry = new CacheEntry(modified, compile(key));
+            entries.put(key, entry);
+        } else if (entry == null || !entry.isCurrent(modified)) {
+            synchronized (transformerFactory) {
+                entry = entries.get(key);
+                if (entry == null || !entry.isCurrent(modified)) {
+                    entry = new CacheEntry(modified, compile(key));
+                    entries.put(key, entry);
+                }
+            }
+        }
+        return entry.getTemplates();
+    }
+
+    int size ()
+    {
+        return entries.size();
+    }
+
+    Templates compile (final Path stylesheet) throws IOException, TransformerException
+    {
+        try (InputStream input = Files.newInputStream(stylesheet)) {
+            return transformerFactory.newTemplates(new StreamSource(input, stylesheet.toString()));
+        }
+    }
+
+    /**
+     * Compiled stylesheet and modification time of its source.
+     *
+     */
+    static final class CacheEntry
+    {
+        private final FileTime modified;
+        private final Templates templates;
+
+        CacheEntry (final FileTime modified, final Templates templates)
+        {
+            this.modified = modified;
+            this.templates = templates;
+        }
+
+        boolean isCurrent (final FileTime time)
+        {
+            return modified.equals(time);
+        }
+
+        Templates getTemplates ()
+        {
+            return templates;
+        }
+    }
+}
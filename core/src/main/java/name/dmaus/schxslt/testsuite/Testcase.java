@@ -26,10 +26,13 @@ package name.dmaus.schxslt.testsuite;
 
 import java.io.IOException;
 
+import java.net.URI;
+
 import java.nio.file.Path;
 import java.nio.file.Files;
 
 import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -40,18 +43,21 @@ import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
 
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-import javax.xml.xpath.XPath;
-
 import javax.xml.XMLConstants;
 
+import javax.xml.transform.Source;
+import javax.xml.transform.URIResolver;
+
+import javax.xml.transform.dom.DOMSource;
+
 /**
  * Schematron testcase.
  *
  */
 public final class Testcase
 {
+    private static final String SCHEMA_FILENAME = "schema.sch";
+
     private final XMLSerializer serializer = new XMLSerializer();
     private final TestcaseSpec spec;
 
@@ -60,14 +66,29 @@ public final class Testcase
     private String queryBinding;
 
     private Path report;
-    private Path tempDirectory;
-    private List<Path> secondary = new ArrayList<Path>();
+    private long documentSize;
+    private Workspace workspace;
+    private final List<Path> secondary = new ArrayList<Path>();
+
+    private Source schemaSource;
+    private Source documentSource;
+    private InMemoryURIResolver uriResolver;
 
     Testcase (final TestcaseSpec spec)
     {
         this.spec = spec;
     }
 
+    /**
+     * Return a fresh testcase sharing the specification with this one.
+     *
+     * @return Testcase
+     */
+    Testcase copy ()
+    {
+        return new Testcase(spec);
+    }
+
     public String getId ()
     {
         return spec.getId();
@@ -83,6 +104,21 @@ public final class Testcase
         return document;
     }
 
+    Source getSchemaSource ()
+    {
+        return schemaSource;
+    }
+
+    Source getDocumentSource ()
+    {
+        return documentSource;
+    }
+
+    URIResolver getURIResolver ()
+    {
+        return uriResolver;
+    }
+
     Path getReport ()
     {
         return report;
@@ -90,7 +126,50 @@ public final class Testcase
 
     Path getTempDirectory ()
     {
-        return tempDirectory;
+        if (workspace == null) {
+            return null;
+        }
+        return workspace.getDirectory();
+    }
+
+    public Workspace getWorkspace ()
+    {
+        return workspace;
+    }
+
+    /**
+     * Set the workspace the testcase is populated in.
+     *
+     * @param workspace Workspace
+     */
+    void setWorkspace (final Workspace workspace)
+    {
+        this.workspace = workspace;
+    }
+
+    /**
+     * Return true if the primary document is generated.
+     *
+     * @return True if the primary document is generated
+     */
+    boolean isGenerated ()
+    {
+        return spec.getDocumentGenerator() != null;
+    }
+
+    /**
+     * Return the size of the primary document written by the last call to populate.
+     *
+     * @return Size in bytes or 0 if the document was not written to disk
+     */
+    long getDocumentSize ()
+    {
+        return documentSize;
+    }
+
+    long getLoadDuration ()
+    {
+        return spec.getLoadDuration();
     }
 
     String getPhase ()
@@ -135,37 +214,39 @@ public final class Testcase
         return features;
     }
 
-    List<Expectation> getExpectations ()
+    String getContentHash ()
     {
-        List<Expectation> expect = new ArrayList<Expectation>();
-
-        XPathFactory compilerFactory = XPathFactory.newInstance();
-        Element[] elements = spec.getExpectations();
-        for (int i = 0; i < elements.length; i++) {
-            Namespaces nsContext = createNamespaceContext(elements[i]);
-            XPath compiler = compilerFactory.newXPath();
-            compiler.setNamespaceContext(nsContext);
-            try {
-                expect.add(new Expectation(compiler.compile(elements[i].getAttribute("test"))));
-            } catch (XPathExpressionException e) {
-                throw new RuntimeException(e);
-            }
-        }
+        return spec.getContentHash();
+    }
 
-        return expect;
+    List<Expectation> getExpectations ()
+    {
+        return spec.getCompiledExpectations();
     }
 
     public void populate (final String queryBindingStr) throws ValidationException
     {
         try {
 
-            tempDirectory = Files.createTempDirectory("testsuite-ng.").toAbsolutePath();
+            secondary.clear();
+
+            if (workspace == null) {
+                workspace = new WorkspaceManager().create(getId());
+            }
+            Path tempDirectory = workspace.getDirectory();
             schema = Files.createTempFile(tempDirectory, "schema", ".sch");
             report = Files.createTempFile(tempDirectory, "report", ".xml");
 
             serializer.serialize(spec.getSchema(queryBindingStr), schema);
 
-            document = serialize(tempDirectory, spec.getPrimaryDocument());
+            DocumentGenerator generator = spec.getDocumentGenerator();
+            if (generator == null) {
+                document = serialize(tempDirectory, spec.getPrimaryDocument());
+            } else {
+                document = resolveFile(tempDirectory, spec.getPrimaryDocument().getAttribute("filename"));
+                generator.write(document);
+            }
+            documentSize = Files.size(document);
 
             NodeList documents = spec.getSecondaryDocuments();
             for (int i = 0; i < documents.getLength(); i++) {
@@ -180,27 +261,51 @@ public final class Testcase
         }
     }
 
-    public void deleteTemporaryFiles ()
+    /**
+     * Provide schema and documents as in-memory sources.
+     *
+     * <p>Every document is copied to a document of its own. Secondary documents are available through the URI
+     * resolver, relative to the system identifier of the primary document.</p>
+     *
+     * @param queryBindingStr Query binding of the schema
+     * @throws ValidationException No schema for the query binding
+     */
+    void populateInMemory (final String queryBindingStr) throws ValidationException
     {
-        deleteTemporaryFile(tempDirectory);
-        deleteTemporaryFile(schema);
-        deleteTemporaryFile(report);
-        deleteTemporaryFile(document);
-        deleteTemporaryFile(secondary);
-    }
+        if (isGenerated()) {
+            throw new IllegalStateException("A generated primary document cannot be populated in memory");
+        }
+        URI baseURI = URI.create("memory:/" + getId() + "/");
+        uriResolver = new InMemoryURIResolver(baseURI);
 
-    Path serialize (final Path directory, final Element documentWrap) throws IOException
-    {
-        String filename = documentWrap.getAttribute("filename");
-        Path filepath = directory.resolve(filename).toAbsolutePath();
+        schemaSource = new DOMSource(copyOf(spec.getSchema(queryBindingStr)), resolve(baseURI, SCHEMA_FILENAME));
 
-        if (!filepath.startsWith(directory)) {
-            throw new RuntimeException("Cannot populate file outside of target directory");
+        Element primary = spec.getPrimaryDocument();
+        documentSource = new DOMSource(copyOf(getDocumentElement(primary)), resolve(baseURI, primary.getAttribute("filename")));
+
+        NodeList documents = spec.getSecondaryDocuments();
+        for (int i = 0; i < documents.getLength(); i++) {
+            Element documentWrap = (Element)documents.item(i);
+            uriResolver.addDocument(resolve(baseURI, documentWrap.getAttribute("filename")), copyOf(getDocumentElement(documentWrap)));
         }
 
-        if (filepath.getParent() != null) {
-            Files.createDirectories(filepath.getParent());
+        queryBinding = queryBindingStr;
+    }
+
+    /**
+     * Delete the workspace with all temporary files of the testcase.
+     *
+     */
+    public void deleteTemporaryFiles ()
+    {
+        if (workspace != null) {
+            workspace.delete();
         }
+    }
+
+    Path serialize (final Path directory, final Element documentWrap) throws IOException
+    {
+        Path filepath = resolveFile(directory, documentWrap.getAttribute("filename"));
 
         NodeList childNodes = documentWrap.getChildNodes();
         for (int j = 0; j < childNodes.getLength(); j++) {
@@ -218,45 +323,61 @@ public final class Testcase
         return filepath;
     }
 
-    Namespaces createNamespaceContext (final Node startNode)
+    Path resolveFile (final Path directory, final String filename) throws IOException
     {
-        Namespaces nsContext = new Namespaces();
-        Node node = startNode;
-        do {
-            collectNamespaceDecls(nsContext, node);
-            node = node.getParentNode();
-        } while (node != null);
-        return nsContext;
+        Path filepath = directory.resolve(filename).toAbsolutePath();
+
+        if (!filepath.startsWith(directory)) {
+            throw new RuntimeException("Cannot populate file outside of target directory");
+        }
+
+        if (filepath.getParent() != null) {
+            Files.createDirectories(filepath.getParent());
+        }
+        return filepath;
     }
 
-    void deleteTemporaryFile (final List<Path> filesOrDirectories)
+    String resolve (final URI baseURI, final String filename)
     {
-        for (Path fileOrDirectory : filesOrDirectories) {
-            deleteTemporaryFile(fileOrDirectory);
+        URI uri = baseURI.resolve(filename).normalize();
+        if (!uri.toString().startsWith(baseURI.toString())) {
+            throw new RuntimeException("Cannot populate file outside of target directory");
         }
+        return uri.toString();
     }
 
-    void deleteTemporaryFile (final Path fileOrDirectory)
+    Element getDocumentElement (final Element documentWrap)
     {
-        Path current = fileOrDirectory;
-        while (current != null && !current.equals(tempDirectory)) {
-            DeleteTemporaryFiles.add(current);
-            current = current.getParent();
+        NodeList childNodes = documentWrap.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            if (childNodes.item(i).getNodeType() == Element.ELEMENT_NODE) {
+                return (Element)childNodes.item(i);
+            }
         }
+        return null;
     }
 
-    void collectNamespaceDecls (final Namespaces nsContext, final Node node)
+    /*
+     * Copy element to a new document, including namespace declarations in scope.
+     */
+    static Document copyOf (final Element element)
     {
-        NamedNodeMap attrs = node.getAttributes();
-        if (attrs != null) {
-            for (int i = 0; i < attrs.getLength(); i++) {
-                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attrs.item(i).getNamespaceURI())) {
-                    String prefix = attrs.item(i).getLocalName();
-                    if (!nsContext.isDeclaredPrefix(prefix)) {
-                        nsContext.addNamespaceBinding(prefix, attrs.item(i).getTextContent());
+        Document document = element.getOwnerDocument().getImplementation().createDocument(null, null, null);
+        Element copy = (Element)document.importNode(element, true);
+        Node node = element.getParentNode();
+        while (node != null) {
+            NamedNodeMap attrs = node.getAttributes();
+            if (attrs != null) {
+                for (int i = 0; i < attrs.getLength(); i++) {
+                    Node attr = attrs.item(i);
+                    if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI()) && !copy.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attr.getLocalName())) {
+                        copy.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attr.getNodeName(), attr.getNodeValue());
                     }
                 }
             }
+            node = node.getParentNode();
         }
+        document.appendChild(copy);
+        return document;
     }
 }
@@ -24,6 +24,7 @@
 
 package name.dmaus.schxslt.testsuite;
 
+import java.io.InputStream;
 import java.io.IOException;
 
 import java.nio.file.Path;
@@ -47,9 +48,14 @@ import org.w3c.dom.Document;
 /**
  * Deserialize a testcase specification.
  *
+ * <p>A loader can be used by several threads at once. The compiled testcase schema is shared by all loaders and
+ * every thread reuses its own document builder.</p>
+ *
  */
 class TestcaseLoader
 {
+    private static final Schema TESTCASE_SCHEMA = compileTestcaseSchema();
+
     private final ErrorHandler errors = new ErrorHandler () {
             public void fatalError (final SAXParseException exception) { throw new RuntimeException(exception); }
 
@@ -59,39 +65,56 @@ class TestcaseLoader
         };
 
     private final DocumentBuilderFactory testcaseDocumentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private final ThreadLocal<DocumentBuilder> documentBuilder = ThreadLocal.withInitial(this::newDocumentBuilder);
 
     TestcaseLoader ()
     {
-        try {
-            SchemaFactory schemaFactory = SchemaFactory.newInstance("http://www.w3.org/2001/XMLSchema");
-
-            Schema testcaseSchema = schemaFactory.newSchema(new StreamSource(getClass().getResourceAsStream("/testcase.xsd")));
-            testcaseDocumentBuilderFactory.setXIncludeAware(true);
-            testcaseDocumentBuilderFactory.setNamespaceAware(true);
-            testcaseDocumentBuilderFactory.setSchema(testcaseSchema);
-
-        } catch (SAXException e) {
-            throw new RuntimeException(e);
-        }
+        testcaseDocumentBuilderFactory.setXIncludeAware(true);
+        testcaseDocumentBuilderFactory.setNamespaceAware(true);
+        testcaseDocumentBuilderFactory.setSchema(TESTCASE_SCHEMA);
     }
 
     Testcase load (final Path input)
     {
-        Document document = loadDocument(testcaseDocumentBuilderFactory, input);
-        TestcaseSpec spec = new TestcaseSpec(document);
+        long start = System.nanoTime();
+        Document document = loadDocument(input);
+        TestcaseSpec spec = new TestcaseSpec(document, System.nanoTime() - start);
         return new Testcase(spec);
     }
 
-    Document loadDocument (final DocumentBuilderFactory factory, final Path input)
+    Document loadDocument (final Path input)
     {
-        try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+        DocumentBuilder builder = documentBuilder.get();
+        try (InputStream stream = Files.newInputStream(input)) {
             builder.setErrorHandler(errors);
-            return builder.parse(Files.newInputStream(input), input.toString());
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+            return builder.parse(stream, input.toString());
+        } catch (SAXException | IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            builder.reset();
+        }
+    }
+
+    DocumentBuilder newDocumentBuilder ()
+    {
+        // The factory is not required to be thread-safe
+        synchronized (testcaseDocumentBuilderFactory) {
+            try {
+                return testcaseDocumentBuilderFactory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
         }
+    }
 
+    static Schema compileTestcaseSchema ()
+    {
+        try (InputStream stream = TestcaseLoader.class.getResourceAsStream("/testcase.xsd")) {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance("http://www.w3.org/2001/XMLSchema");
+            return schemaFactory.newSchema(new StreamSource(stream));
+        } catch (SAXException | IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
 }
@@ -26,10 +26,19 @@ package name.dmaus.schxslt.testsuite;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.io.IOException;
+
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+
+import javax.xml.XMLConstants;
+
+import javax.xml.xpath.XPathExpressionException;
 
 /**
  * Provide access to the XML testcase specification.
@@ -52,9 +61,32 @@ class TestcaseSpec
 
     private final Document document;
 
+    private final long loadDuration;
+
+    private List<Expectation> compiledExpectations;
+    private String contentHash;
+    private DocumentGenerator documentGenerator;
+    private boolean documentGeneratorChecked;
+
     TestcaseSpec (final Document document)
+    {
+        this(document, 0);
+    }
+
+    TestcaseSpec (final Document document, final long loadDuration)
     {
         this.document = document;
+        this.loadDuration = loadDuration;
+    }
+
+    /**
+     * Return the time it took to load the testcase specification.
+     *
+     * @return Duration in nanoseconds
+     */
+    long getLoadDuration ()
+    {
+        return loadDuration;
     }
 
     boolean isExpectValid ()
@@ -86,6 +118,20 @@ class TestcaseSpec
         return (Element)document.getElementsByTagNameNS(NS, NAME_PRIMARY).item(0);
     }
 
+    /**
+     * Return the generator of the primary document.
+     *
+     * @return Generator or null if the primary document is given inline
+     */
+    synchronized DocumentGenerator getDocumentGenerator ()
+    {
+        if (!documentGeneratorChecked) {
+            documentGenerator = DocumentGenerator.of(getPrimaryDocument());
+            documentGeneratorChecked = true;
+        }
+        return documentGenerator;
+    }
+
     NodeList getSecondaryDocuments ()
     {
         return document.getElementsByTagNameNS(NS, NAME_SECONDARY);
@@ -157,4 +203,69 @@ class TestcaseSpec
         unspecificSchema.setAttribute(NAME_QUERYBINDING, queryBinding);
         return unspecificSchema;
     }
+
+    /**
+     * Return the hash of the testcase specification with all inclusions expanded.
+     *
+     * @return Hexadecimal hash
+     */
+    synchronized String getContentHash ()
+    {
+        if (contentHash == null) {
+            try {
+                contentHash = new ContentDigest().update(document).toHex();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return contentHash;
+    }
+
+    /**
+     * Return the expectations compiled once per testcase specification.
+     *
+     * @return Immutable list of expectations
+     */
+    synchronized List<Expectation> getCompiledExpectations ()
+    {
+        if (compiledExpectations == null) {
+            List<Expectation> expect = new ArrayList<Expectation>();
+            Element[] elements = getExpectations();
+            for (int i = 0; i < elements.length; i++) {
+                try {
+                    expect.add(new Expectation(elements[i].getAttribute("test"), createNamespaceContext(elements[i])));
+                } catch (XPathExpressionException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            compiledExpectations = Collections.unmodifiableList(expect);
+        }
+        return compiledExpectations;
+    }
+
+    Namespaces createNamespaceContext (final Node startNode)
+    {
+        Namespaces nsContext = new Namespaces();
+        Node node = startNode;
+        do {
+            collectNamespaceDecls(nsContext, node);
+            node = node.getParentNode();
+        } while (node != null);
+        return nsContext;
+    }
+
+    void collectNamespaceDecls (final Namespaces nsContext, final Node node)
+    {
+        NamedNodeMap attrs = node.getAttributes();
+        if (attrs != null) {
+            for (int i = 0; i < attrs.getLength(); i++) {
+                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attrs.item(i).getNamespaceURI())) {
+                    String prefix = attrs.item(i).getLocalName();
+                    if (!nsContext.isDeclaredPrefix(prefix)) {
+                        nsContext.addNamespaceBinding(prefix, attrs.item(i).getTextContent());
+                    }
+                }
+            }
+        }
+    }
 }
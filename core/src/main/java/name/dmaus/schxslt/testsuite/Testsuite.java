@@ -26,6 +26,8 @@ package name.dmaus.schxslt.testsuite;
 
 import java.util.List;
 
+import java.util.stream.Stream;
+
 /**
  * A collection of testcases.
  *
@@ -34,5 +36,18 @@ public interface Testsuite
 {
     List<Testcase> getTestcases ();
 
+    /**
+     * Return a stream that loads the testcases on demand.
+     *
+     * <p>The stream may hold open resources and must be closed after use. The default implementation streams the
+     * testcases returned by {@link #getTestcases()}.</p>
+     *
+     * @return Stream of testcases
+     */
+    default Stream<Testcase> getTestcaseStream ()
+    {
+        return getTestcases().stream();
+    }
+
     String getLabel ();
 }
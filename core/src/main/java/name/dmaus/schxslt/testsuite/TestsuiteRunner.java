@@ -24,17 +24,55 @@
 
 package name.dmaus.schxslt.testsuite;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import java.util.List;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import java.time.Duration;
+
+import java.util.stream.Stream;
 
 /**
  * Execute all tests of a testsuite.
  *
+ * <p>Testcases are loaded on demand. With a parallelism greater than 1 the testcases are executed by a bounded pool
+ * of worker threads. Results are added to the report in testsuite order.</p>
+ *
+ * <p>A run can be stopped early, either on the first failure or error (fail-fast) or when a time budget is
+ * exceeded. Remaining testcases are not loaded, queued testcases that did not start yet are reported with the status
+ * CANCELLED.</p>
+ *
  */
 public final class TestsuiteRunner
 {
+    private static final int QUEUED_PER_WORKER = 2;
+
     private final Driver driver;
     private final List<String> skipTestcaseIds;
+    private final List<ReportSink> sinks = new ArrayList<ReportSink>();
+
+    private final AtomicReference<String> stopReason = new AtomicReference<String>();
+
+    private int parallelism = 1;
+    private boolean retainResults = true;
+    private boolean failFast;
+    private Duration timeBudget;
+    private long deadline;
+
+    private ResultManifest manifest;
+    private String fingerprint;
 
     public TestsuiteRunner (final Driver driver)
     {
@@ -48,25 +86,248 @@ public final class TestsuiteRunner
         this.skipTestcaseIds = skipTestcaseIds;
     }
 
+    /**
+     * Set the maximum number of testcases executed concurrently.
+     *
+     * @param parallelism Number of worker threads
+     */
+    public void setParallelism (final int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism ()
+    {
+        return parallelism;
+    }
+
+    /**
+     * Add a sink that receives every result as soon as it is available.
+     *
+     * @param sink Report sink
+     */
+    public void addReportSink (final ReportSink sink)
+    {
+        sinks.add(sink);
+    }
+
+    /**
+     * Keep the results in the returned report.
+     *
+     * @param retainResults False to only keep counts and durations
+     * @see Report#setRetainResults(boolean)
+     */
+    public void setRetainResults (final boolean retainResults)
+    {
+        this.retainResults = retainResults;
+    }
+
+    /**
+     * Stop the run on the first testcase that fails or raises an error.
+     *
+     * @param failFast Fail fast
+     */
+    public void setFailFast (final boolean failFast)
+    {
+        this.failFast = failFast;
+    }
+
+    public boolean isFailFast ()
+    {
+        return failFast;
+    }
+
+    /**
+     * Stop scheduling new testcases once the run took longer than the time budget.
+     *
+     * <p>Testcases that already started are completed.</p>
+     *
+     * @param timeBudget Time budget or null for no limit
+     */
+    public void setTimeBudget (final Duration timeBudget)
+    {
+        this.timeBudget = timeBudget;
+    }
+
+    public Duration getTimeBudget ()
+    {
+        return timeBudget;
+    }
+
+    /**
+     * Only execute testcases that changed or did not succeed in the previous run.
+     *
+     * <p>The manifest is saved at the end of every run.</p>
+     *
+     * @param manifest Manifest of the previous run or null to execute all testcases
+     */
+    public void setResultManifest (final ResultManifest manifest)
+    {
+        this.manifest = manifest;
+    }
+
     public Report run (final Testsuite testsuite)
     {
+        stopReason.set(null);
+        if (timeBudget != null) {
+            deadline = System.nanoTime() + timeBudget.toNanos();
+        }
+
         Report report = new Report();
         report.setLabel(testsuite.getLabel());
+        report.setRetainResults(retainResults);
+        for (ReportSink sink : sinks) {
+            report.addSink(sink);
+        }
+
+        if (manifest != null) {
+            fingerprint = driver.getFingerprint();
+        }
 
-        for (Testcase testcase : testsuite.getTestcases()) {
-            ValidationResult result;
-            if (skipTestcaseIds.contains(testcase.getId())) {
-                result = new ValidationResult(testcase, ValidationStatus.SKIPPED, null, null);
+        report.start();
+        try (Stream<Testcase> testcases = testsuite.getTestcaseStream()) {
+            Iterator<Testcase> iterator = testcases.iterator();
+            if (parallelism > 1) {
+                runParallel(iterator, report);
             } else {
-                try {
-                    result = driver.execute(testcase);
-                } catch (Exception e) {
-                    result = new ValidationResult(testcase, ValidationStatus.ERROR, null, e.getMessage());
+                while (!isStopped() && iterator.hasNext()) {
+                    report.addValidationResult(executeUnlessStopped(iterator.next()));
                 }
             }
-            report.addValidationResult(result);
+            while (iterator.hasNext()) {
+                report.addValidationResult(createCancelledResult(iterator.next()));
+            }
+            report.setStopReason(stopReason.get());
+            collectStatistics(report);
+            if (manifest != null) {
+                manifest.save();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            report.finish();
         }
         return report;
     }
 
+    void collectStatistics (final Report report)
+    {
+        ValidationFactory factory = driver.getValidationFactory();
+        if (factory.getAvailabilityProbe() != null) {
+            report.setAvailabilityProbe(factory.getAvailabilityProbe());
+        }
+        if (factory.getSchemaCache() != null) {
+            report.setSchemaCache(factory.getSchemaCache());
+        }
+        report.setWorkspaceManager(driver.getWorkspaceManager());
+        if (manifest != null) {
+            report.setResultManifest(manifest);
+        }
+    }
+
+    /*
+     * Only a bounded number of testcases is loaded and queued at any time. Results are collected from the head of
+     * the queue to keep the testsuite order.
+     *
+     * Once the run is stopped no more testcases are queued. Queued testcases that did not start yet are reported as
+     * CANCELLED when their turn comes, testcases that already started are completed. The caller reports the
+     * testcases that were never queued.
+     */
+    void runParallel (final Iterator<Testcase> testcases, final Report report)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Deque<Testcase> pendingTestcases = new ArrayDeque<Testcase>();
+            Deque<Future<ValidationResult>> pendingResults = new ArrayDeque<Future<ValidationResult>>();
+            while (!isStopped() && testcases.hasNext()) {
+                Testcase testcase = testcases.next();
+                pendingTestcases.add(testcase);
+                pendingResults.add(executor.submit(() -> executeUnlessStopped(testcase)));
+                if (pendingResults.size() >= parallelism * QUEUED_PER_WORKER) {
+                    report.addValidationResult(awaitResult(pendingTestcases.remove(), pendingResults.remove()));
+                }
+            }
+            while (!pendingResults.isEmpty()) {
+                report.addValidationResult(awaitResult(pendingTestcases.remove(), pendingResults.remove()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    ValidationResult awaitResult (final Testcase testcase, final Future<ValidationResult> future)
+    {
+        ValidationResult result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            result = new ValidationResult(testcase, ValidationStatus.ERROR, null, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = new ValidationResult(testcase, ValidationStatus.ERROR, null, "Interrupted while waiting for the testcase");
+        }
+        return result;
+    }
+
+    boolean isStopped ()
+    {
+        if (stopReason.get() == null && timeBudget != null && System.nanoTime() - deadline >= 0) {
+            stopReason.compareAndSet(null, String.format("Not reached: time budget of %s exceeded", timeBudget));
+        }
+        return stopReason.get() != null;
+    }
+
+    ValidationResult executeUnlessStopped (final Testcase testcase)
+    {
+        if (isStopped()) {
+            return createCancelledResult(testcase);
+        }
+        ValidationResult result = execute(testcase);
+        if (failFast && isFailure(result.getStatus())) {
+            stopReason.compareAndSet(null, String.format("Not reached: stopped after testcase %s failed", testcase.getId()));
+        }
+        return result;
+    }
+
+    boolean isFailure (final ValidationStatus status)
+    {
+        return status == ValidationStatus.FAILURE || status == ValidationStatus.ERROR || status == ValidationStatus.TIMEOUT;
+    }
+
+    ValidationResult createCancelledResult (final Testcase testcase)
+    {
+        ValidationResult result = new ValidationResult(testcase, ValidationStatus.CANCELLED, null, stopReason.get());
+        if (manifest != null) {
+            manifest.record(manifest.createKey(testcase, fingerprint), result);
+        }
+        return result;
+    }
+
+    ValidationResult execute (final Testcase testcase)
+    {
+        ValidationResult result;
+        String key = null;
+        if (manifest != null) {
+            key = manifest.createKey(testcase, fingerprint);
+        }
+        if (skipTestcaseIds.contains(testcase.getId())) {
+            result = new ValidationResult(testcase, ValidationStatus.SKIPPED, null, null);
+        } else if (key != null && manifest.isUnchanged(key)) {
+            result = new ValidationResult(testcase, ValidationStatus.SUCCESS, null, "Unchanged since the previous run, not executed", new Timings(), true);
+        } else {
+            try {
+                result = driver.execute(testcase);
+            } catch (Exception e) {
+                result = new ValidationResult(testcase, ValidationStatus.ERROR, null, e.getMessage());
+            }
+        }
+        if (key != null) {
+            manifest.record(key, result);
+        }
+        return result;
+    }
+
 }
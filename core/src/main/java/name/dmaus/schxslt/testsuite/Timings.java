@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+/**
+ * Durations of the phases of a testcase execution.
+ *
+ * <p>Durations are measured in nanoseconds with System.nanoTime(). A phase that was not reached has no duration.</p>
+ *
+ */
+public final class Timings
+{
+    /**
+     * Phases of a testcase execution.
+     *
+     */
+    public enum Phase
+    {
+        LOAD,
+        POPULATE,
+        COMPILE,
+        VALIDATE,
+        EXPECTATIONS
+    }
+
+    private static final long NOT_RECORDED = -1;
+
+    private final long[] durations = new long[Phase.values().length];
+
+    public Timings ()
+    {
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = NOT_RECORDED;
+        }
+    }
+
+    /**
+     * Record the duration of a phase.
+     *
+     * <p>Durations of a phase that is recorded more than once are added up.</p>
+     *
+     * @param phase Phase
+     * @param duration Duration in nanoseconds
+     */
+    public void record (final Phase phase, final long duration)
+    {
+        if (durations[phase.ordinal()] == NOT_RECORDED) {
+            durations[phase.ordinal()] = duration;
+        } else {
+            durations[phase.ordinal()] += duration;
+        }
+    }
+
+    /**
+     * Record the time elapsed since a start time.
+     *
+     * @param phase Phase
+     * @param start Start time as returned by System.nanoTime()
+     */
+    public void recordSince (final Phase phase, final long start)
+    {
+        record(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Add all recorded durations of another instance.
+     *
+     * @param timings Timings
+     */
+    public void add (final Timings timings)
+    {
+        for (Phase phase : Phase.values()) {
+            if (timings.has(phase)) {
+                record(phase, timings.get(phase));
+            }
+        }
+    }
+
+    public boolean has (final Phase phase)
+    {
+        return durations[phase.ordinal()] != NOT_RECORDED;
+    }
+
+    /**
+     * Return the duration of a phase.
+     *
+     * @param phase Phase
+     * @return Duration in nanoseconds or 0 if the phase was not reached
+     */
+    public long get (final Phase phase)
+    {
+        if (has(phase)) {
+            return durations[phase.ordinal()];
+        }
+        return 0;
+    }
+
+    /**
+     * Return the accumulated duration of all phases.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getTotal ()
+    {
+        long total = 0;
+        for (Phase phase : Phase.values()) {
+            total += get(phase);
+        }
+        return total;
+    }
+}
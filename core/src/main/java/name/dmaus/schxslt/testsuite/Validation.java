@@ -72,6 +72,32 @@ public interface Validation
      */
     boolean isValid ();
 
+    /**
+     * Build the validation report as a document.
+     *
+     * <p>If the report is not required only the verdict is computed while the report is streamed and
+     * {@link #getReport()} returns null.</p>
+     *
+     * <p>The default implementation ignores the hint and leaves the report to the validation.</p>
+     *
+     * @param reportRequired True to build the report
+     */
+    default void setReportRequired (final boolean reportRequired)
+    {
+    }
+
+    /**
+     * Set the content hash of the testcase.
+     *
+     * <p>A validation that persists compiled schemas across runs uses the hash to tell apart schemas that include
+     * different secondary documents.</p>
+     *
+     * @param contentHash Hash of the testcase specification
+     */
+    default void setContentHash (final String contentHash)
+    {
+    }
+
     /**
      * Return validation report, if any.
      *
@@ -79,6 +105,18 @@ public interface Validation
      */
     Document getReport ();
 
+    /**
+     * Return the durations of the compilation and validation phases of the last execution.
+     *
+     * <p>The default implementation records no phases.</p>
+     *
+     * @return Timings
+     */
+    default Timings getTimings ()
+    {
+        return new Timings();
+    }
+
     /**
      * Execute the validation.
      *
@@ -41,5 +41,71 @@ public interface ValidationFactory
 
     boolean isAvailable ();
 
+    /**
+     * Return the probe memoizing the availability of the processor.
+     *
+     * @return Availability probe or null if the availability is not memoized
+     */
+    default AvailabilityProbe getAvailabilityProbe ()
+    {
+        return null;
+    }
+
+    /**
+     * Return the cache of compiled schemas.
+     *
+     * @return Schema cache or null if compiled schemas are not cached
+     */
+    default SchemaCache getSchemaCache ()
+    {
+        return null;
+    }
+
+    /**
+     * Return a hash identifying the configuration of the processor.
+     *
+     * <p>The hash changes whenever the label, the query binding, the features or the content of a compiler step or a
+     * module it imports or includes change.</p>
+     *
+     * <p>The default implementation only covers the class, the label and the query binding. Factories whose
+     * configuration goes beyond that should override it.</p>
+     *
+     * @return Hexadecimal hash
+     */
+    default String getFingerprint ()
+    {
+        return new ContentDigest()
+            .update(getClass().getName())
+            .update(getLabel())
+            .update(getQueryBinding())
+            .toHex();
+    }
+
+    /**
+     * Return a hash identifying the configuration of the processor with compiler steps resolved against a base
+     * directory.
+     *
+     * @param basedir Base directory
+     * @return Hexadecimal hash
+     */
+    default String getFingerprint (final Path basedir)
+    {
+        return getFingerprint();
+    }
+
     Validation newInstance ();
+
+    /**
+     * Return a validation whose compiler steps are resolved against a base directory.
+     *
+     * <p>Unlike {@link #setBaseDirectory(Path)} this leaves the factory unchanged, so one factory can serve runs with
+     * different base directories at the same time.</p>
+     *
+     * @param basedir Base directory
+     * @return Validation
+     */
+    default Validation newInstance (final Path basedir)
+    {
+        return newInstance();
+    }
 }
@@ -34,6 +34,8 @@ public final class ValidationResult
     private final ValidationStatus status;
     private final String errorMessage;
     private final Object report;
+    private final Timings timings;
+    private final boolean reused;
 
     ValidationResult (final Testcase testcase, final ValidationStatus status)
     {
@@ -42,10 +44,22 @@ public final class ValidationResult
 
     ValidationResult (final Testcase testcase, final ValidationStatus status, final Object report, final String errorMessage)
     {
+        this(testcase, status, report, errorMessage, new Timings());
+    }
+
+    ValidationResult (final Testcase testcase, final ValidationStatus status, final Object report, final String errorMessage, final Timings timings)
+    {
+        this(testcase, status, report, errorMessage, timings, false);
+    }
+
+    ValidationResult (final Testcase testcase, final ValidationStatus status, final Object report, final String errorMessage, final Timings timings, final boolean reused)
+    {
+        this.reused = reused;
         this.testcase = testcase;
         this.status = status;
         this.report = report;
         this.errorMessage = errorMessage;
+        this.timings = timings;
     }
 
     public Testcase getTestcase ()
@@ -67,4 +81,19 @@ public final class ValidationResult
     {
         return report;
     }
+
+    /**
+     * Return true if the result was taken over from a previous run without executing the testcase.
+     *
+     * @return True if the testcase was not executed
+     */
+    public boolean isReused ()
+    {
+        return reused;
+    }
+
+    public Timings getTimings ()
+    {
+        return timings;
+    }
 }
@@ -36,6 +36,10 @@ package name.dmaus.schxslt.testsuite;
  *   <dd>the testcase was not executed</dd>
  *   <dt>ERROR</dt>
  *   <dd>an unexpected error occurred while setting up or executing the testcase</dd>
+ *   <dt>TIMEOUT</dt>
+ *   <dd>the testcase did not finish within the configured timeout</dd>
+ *   <dt>CANCELLED</dt>
+ *   <dd>the testcase was not reached because the run was stopped early</dd>
  * </dl>
  *
  */ 
@@ -44,5 +48,7 @@ public enum ValidationStatus
     FAILURE,
     SUCCESS,
     SKIPPED,
-    ERROR
+    ERROR,
+    TIMEOUT,
+    CANCELLED
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.stream.Stream;
+
+/**
+ * Temporary directory holding the files of a single testcase.
+ *
+ */
+public final class Workspace
+{
+    private final Path directory;
+    private boolean deleted;
+
+    Workspace (final Path directory)
+    {
+        this.directory = directory;
+    }
+
+    public Path getDirectory ()
+    {
+        return directory;
+    }
+
+    /**
+     * Return the number of bytes of all files in the workspace.
+     *
+     * @return Size in bytes
+     */
+    public synchronized long size ()
+    {
+        if (deleted) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(Workspace::size).sum();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public synchronized boolean isDeleted ()
+    {
+        return deleted;
+    }
+
+    /**
+     * Delete the workspace with all its contents.
+     *
+     */
+    public synchronized void delete ()
+    {
+        if (!deleted) {
+            try {
+                DeleteTemporaryFiles.deleteRecursively(directory);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            DeleteTemporaryFiles.remove(directory);
+            deleted = true;
+        }
+    }
+
+    /**
+     * Keep the workspace after the virtual machine terminated.
+     *
+     */
+    synchronized void keep ()
+    {
+        DeleteTemporaryFiles.remove(directory);
+    }
+
+    static long size (final Path file)
+    {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
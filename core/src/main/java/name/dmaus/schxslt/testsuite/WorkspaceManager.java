@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates and releases testcase workspaces.
+ *
+ * <p>A workspace is deleted as soon as the result of its testcase is final. Workspaces of failed testcases can be
+ * kept for inspection. Workspaces that are neither released nor kept are deleted when the virtual machine
+ * terminates. The manager is safe for use by multiple threads.</p>
+ *
+ * <p>Workspaces are created below a configurable root directory, e.g. a RAM-backed file system like /dev/shm, or in
+ * the system's temporary directory if no root is set.</p>
+ *
+ */
+public final class WorkspaceManager
+{
+    private static final String PREFIX = "testsuite-ng.";
+
+    private final AtomicInteger countCreated = new AtomicInteger();
+    private final AtomicInteger countKept = new AtomicInteger();
+    private final AtomicLong totalSize = new AtomicLong();
+    private final AtomicLong largestSize = new AtomicLong();
+    private final AtomicLong keptSize = new AtomicLong();
+
+    private volatile boolean keepFailures;
+    private volatile Path root;
+
+    /**
+     * Set the directory workspaces are created in.
+     *
+     * <p>The directory is created if it does not exist. Commandline processors require a path on the default file
+     * system.</p>
+     *
+     * @param root Root directory or null to use the system's temporary directory
+     */
+    public void setRoot (final Path root)
+    {
+        this.root = root;
+    }
+
+    public Path getRoot ()
+    {
+        return root;
+    }
+
+    /**
+     * Keep the workspaces of failed testcases.
+     *
+     * @param keepFailures Keep failures
+     */
+    public void setKeepFailures (final boolean keepFailures)
+    {
+        this.keepFailures = keepFailures;
+    }
+
+    public boolean isKeepFailures ()
+    {
+        return keepFailures;
+    }
+
+    /**
+     * Create a new workspace.
+     *
+     * @param  name Name of the workspace, e.g. the testcase identifier
+     * @return Workspace
+     */
+    public Workspace create (final String name)
+    {
+        try {
+            Path directory;
+            if (root == null) {
+                directory = Files.createTempDirectory(PREFIX + sanitize(name) + ".");
+            } else {
+                directory = Files.createTempDirectory(Files.createDirectories(root), PREFIX + sanitize(name) + ".");
+            }
+            directory = directory.toAbsolutePath();
+            DeleteTemporaryFiles.add(directory);
+            countCreated.incrementAndGet();
+            return new Workspace(directory);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Release a workspace once the result of its testcase is final.
+     *
+     * @param workspace Workspace
+     * @param status    Final status of the testcase
+     * @return True if the workspace was kept
+     */
+    public boolean release (final Workspace workspace, final ValidationStatus status)
+    {
+        long size = workspace.size();
+        totalSize.addAndGet(size);
+        largestSize.accumulateAndGet(size, Math::max);
+
+        if (keepFailures && isFailure(status)) {
+            workspace.keep();
+            countKept.incrementAndGet();
+            keptSize.addAndGet(size);
+            return true;
+        }
+        workspace.delete();
+        return false;
+    }
+
+    public int countWorkspaces ()
+    {
+        return countCreated.get();
+    }
+
+    public int countKept ()
+    {
+        return countKept.get();
+    }
+
+    /**
+     * Return the number of bytes written to all released workspaces.
+     *
+     * @return Size in bytes
+     */
+    public long getTotalSize ()
+    {
+        return totalSize.get();
+    }
+
+    /**
+     * Return the number of bytes of the largest released workspace.
+     *
+     * @return Size in bytes
+     */
+    public long getLargestSize ()
+    {
+        return largestSize.get();
+    }
+
+    /**
+     * Return the number of bytes still occupied by kept workspaces.
+     *
+     * @return Size in bytes
+     */
+    public long getKeptSize ()
+    {
+        return keptSize.get();
+    }
+
+    boolean isFailure (final ValidationStatus status)
+    {
+        return status == ValidationStatus.FAILURE || status == ValidationStatus.ERROR || status == ValidationStatus.TIMEOUT;
+    }
+
+    String sanitize (final String name)
+    {
+        if (name == null) {
+            return "";
+        }
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+}
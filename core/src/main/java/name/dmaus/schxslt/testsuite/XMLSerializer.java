@@ -33,6 +33,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -59,10 +60,19 @@ public final class XMLSerializer
 
     public void serialize (final Node node, final Path path)
     {
-        try {
-            transformer.transform(new DOMSource(node), new StreamResult(Files.newOutputStream(path)));
+        try (OutputStream out = Files.newOutputStream(path)) {
+            transformer.transform(new DOMSource(node), new StreamResult(out));
         } catch (TransformerException | IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    public void serialize (final Node node, final OutputStream out)
+    {
+        try {
+            transformer.transform(new DOMSource(node), new StreamResult(out));
+        } catch (TransformerException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AvailabilityProbeTest
+{
+    @Test
+    public void testProbeOnce ()
+    {
+        AtomicInteger calls = new AtomicInteger();
+        AvailabilityProbe probe = new AvailabilityProbe(() -> calls.incrementAndGet() > 0);
+
+        assertNull(probe.getCachedResult());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(probe.isAvailable());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, probe.countProbes());
+        assertEquals(Boolean.TRUE, probe.getCachedResult());
+    }
+
+    @Test
+    public void testReprobeAfterInterval () throws InterruptedException
+    {
+        AtomicInteger calls = new AtomicInteger();
+        AvailabilityProbe probe = new AvailabilityProbe(() -> calls.incrementAndGet() > 1);
+        probe.setInterval(1);
+
+        assertFalse(probe.isAvailable());
+        Thread.sleep(5);
+        assertTrue(probe.isAvailable());
+        assertEquals(2, probe.countProbes());
+    }
+}
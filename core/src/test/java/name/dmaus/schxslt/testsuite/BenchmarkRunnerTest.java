@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+class BenchmarkRunnerTest
+{
+    TestcaseLoader loader = new TestcaseLoader();
+
+    @Test
+    public void testBenchmark (@TempDir final Path directory) throws Exception
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 3; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+        Testsuite testsuite = new Testsuite() {
+                public List<Testcase> getTestcases ()
+                {
+                    return testcases;
+                }
+
+                public String getLabel ()
+                {
+                    return "benchmark";
+                }
+            };
+
+        BenchmarkRunner runner = new BenchmarkRunner();
+        runner.addProcessor("first", new Driver(new StubValidationFactory(1, 2)));
+        runner.addProcessor("second", new Driver(new StubValidationFactory(1, 2)));
+        runner.setWarmupIterations(2);
+        runner.setIterations(4);
+        BenchmarkReport report = runner.run(testsuite);
+
+        assertEquals(Arrays.asList("first", "second"), new ArrayList<String>(report.getProcessors()));
+        assertEquals(6, report.getMeasurements().size());
+        assertEquals(12, report.getDurations("first").length);
+        assertEquals(ValidationStatus.SUCCESS, report.getMeasurements().get(0).getStatus());
+        assertTrue(report.getThroughput("first") > 0);
+        assertTrue(report.getPercentile("first", 50) <= report.getPercentile("first", 99));
+        assertFalse(report.hasFailures());
+
+        report.write(directory.resolve("benchmark.csv"));
+        List<String> lines = Files.readAllLines(directory.resolve("benchmark.csv"));
+        assertEquals(7, lines.size());
+        assertTrue(lines.get(1).startsWith("first,example,SUCCESS,4,0,"));
+
+        report.write(directory.resolve("benchmark.json"));
+        String json = new String(Files.readAllBytes(directory.resolve("benchmark.json")), "UTF-8");
+        assertTrue(json.startsWith("{\"testsuite\":\"benchmark\""));
+        assertTrue(json.contains("\"processor\":\"second\""));
+    }
+
+    @Test
+    public void testFailedIterationsAreExcluded ()
+    {
+        ValidationStatus[] statuses = new ValidationStatus[] {ValidationStatus.SUCCESS, ValidationStatus.ERROR, ValidationStatus.SUCCESS};
+        BenchmarkReport.Measurement measurement = new BenchmarkReport.Measurement("first", "example", "Example", statuses, new long[] {10, 1, 30});
+
+        assertEquals(ValidationStatus.ERROR, measurement.getStatus());
+        assertEquals(1, measurement.countFailedIterations());
+        assertArrayEquals(new long[] {10, 30}, measurement.getDurations());
+    }
+}
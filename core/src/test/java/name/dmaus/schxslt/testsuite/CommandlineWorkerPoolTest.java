@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+class CommandlineWorkerPoolTest
+{
+    // Stub worker that answers every job by copying the source document to the result document
+    static final List<String> COPY_WORKER = Arrays.asList("sh", "-c", "while IFS=\"$(printf '\\t')\" read -r stylesheet document target params; do cp \"$document\" \"$target\" && echo OK || echo ERROR copy failed; done");
+
+    static final List<String> FAILING_WORKER = Arrays.asList("sh", "-c", "while read -r job; do echo ERROR boom; done");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWorkerIsReused () throws Exception
+    {
+        CommandlineWorkerPool pool = new CommandlineWorkerPool(COPY_WORKER, 2);
+        try {
+            Path stylesheet = Paths.get("src/test/resources/simple.xsl");
+            for (int i = 0; i < 3; i++) {
+                CommandlineTransformer transformer = new CommandlineTransformer(stylesheet, pool);
+                transformer.setParameter("phase", "phase");
+                Path target = transformer.transform(Paths.get("src/test/resources/testcase.xml"));
+                assertEquals(Files.size(Paths.get("src/test/resources/testcase.xml")), Files.size(target));
+            }
+            assertEquals(1, pool.countWorkers());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testWorkerError ()
+    {
+        CommandlineWorkerPool pool = new CommandlineWorkerPool(FAILING_WORKER, 1);
+        try {
+            CommandlineTransformer transformer = new CommandlineTransformer(Paths.get("src/test/resources/simple.xsl"), pool);
+            RuntimeException e = assertThrows(RuntimeException.class, () -> transformer.transform(Paths.get("src/test/resources/testcase.xml")));
+            assertTrue(e.getMessage().endsWith("ERROR boom"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testWaitingJobReplacesDiscardedWorker () throws Exception
+    {
+        CommandlineWorkerPool pool = new CommandlineWorkerPool(COPY_WORKER, 1);
+        try {
+            CommandlineWorkerPool.Worker busy = pool.acquire();
+            FutureTask<CommandlineWorkerPool.Worker> waiting = new FutureTask<CommandlineWorkerPool.Worker>(pool::acquire);
+            new Thread(waiting).start();
+
+            pool.discard(busy);
+            CommandlineWorkerPool.Worker replacement = waiting.get(10, TimeUnit.SECONDS);
+            assertNotSame(busy, replacement);
+            pool.release(replacement);
+            assertEquals(1, pool.countWorkers());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(0, pool.countWorkers());
+        assertThrows(IllegalStateException.class, pool::acquire);
+    }
+
+    @Test
+    public void testUnavailableWorker ()
+    {
+        CommandlineWorkerPool pool = new CommandlineWorkerPool(Arrays.asList(directory.resolve("missing").toString()), 1);
+        assertFalse(pool.isAvailable());
+        assertEquals(0, pool.countWorkers());
+    }
+
+    @Test
+    public void testFieldsMustNotContainTabs ()
+    {
+        CommandlineWorkerPool pool = new CommandlineWorkerPool(COPY_WORKER, 1);
+        assertThrows(IllegalArgumentException.class, () -> pool.field("a\tb"));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.stream.Stream;
+
+class DirectoryTestsuiteTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testTestcaseStream () throws Exception
+    {
+        Files.createDirectories(directory.resolve("sub"));
+        Files.copy(Paths.get("src/test/resources/testcase.xml"), directory.resolve("a.xml"));
+        Files.copy(Paths.get("src/test/resources/testcase.xml"), directory.resolve("sub/b.xml"));
+        Files.copy(Paths.get("src/test/resources/simple.xsl"), directory.resolve("simple.xsl"));
+
+        DirectoryTestsuite testsuite = new DirectoryTestsuite(directory, "directory");
+        try (Stream<Testcase> testcases = testsuite.getTestcaseStream()) {
+            assertEquals(2, testcases.count());
+        }
+        assertEquals(2, testsuite.getTestcases().size());
+
+        testsuite.setLoaderParallelism(1);
+        assertEquals(2, testsuite.getTestcases().size());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+class DriverTest
+{
+    TestcaseLoader loader = new TestcaseLoader();
+
+    @Test
+    public void testKeptFailureContainsReport (@TempDir final Path directory) throws Exception
+    {
+        WorkspaceManager manager = new WorkspaceManager();
+        manager.setRoot(directory);
+        manager.setKeepFailures(true);
+        Driver driver = new Driver(new StubValidationFactory(0));
+        driver.setWorkspaceManager(manager);
+
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase-no-expectations.xml"));
+        ValidationResult result = driver.execute(testcase);
+
+        assertEquals(ValidationStatus.FAILURE, result.getStatus());
+        assertEquals(1, manager.countKept());
+        assertTrue(Files.size(testcase.getReport()) > 0);
+        testcase.deleteTemporaryFiles();
+    }
+}
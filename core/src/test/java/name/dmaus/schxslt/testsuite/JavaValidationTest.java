@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.transform.TransformerFactory;
+
+class JavaValidationTest
+{
+    TestcaseLoader loader = new TestcaseLoader();
+
+    List<Path> compilerSteps = Arrays.asList(Paths.get("src/test/resources/identity.xsl"), Paths.get("src/test/resources/compile.xsl"));
+
+    @Test
+    public void testValidation () throws ValidationException
+    {
+        assertTrue(validate("xslt2", false));
+        assertFalse(validate("xslt", false));
+    }
+
+    @Test
+    public void testFingerprintCoversModules (@TempDir final Path directory) throws Exception
+    {
+        Path module = directory.resolve("module.xsl");
+        Files.write(directory.resolve("compile.xsl"), "<xsl:transform xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='1.0'><xsl:import href='module.xsl'/></xsl:transform>".getBytes("UTF-8"));
+        Files.write(module, "<xsl:transform xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='1.0'/>".getBytes("UTF-8"));
+
+        JavaValidationFactory factory = new JavaValidationFactory("java", "xslt2", TransformerFactory.newInstance(), new String[0], Arrays.asList("compile.xsl"));
+        factory.setBaseDirectory(directory);
+        String fingerprint = factory.getFingerprint();
+
+        JavaValidationFactory shared = new JavaValidationFactory("java", "xslt2", TransformerFactory.newInstance(), new String[0], Arrays.asList("compile.xsl"));
+        assertEquals(fingerprint, shared.getFingerprint(directory));
+        assertEquals(Arrays.asList(directory.resolve("compile.xsl")), shared.getCompilerSteps(directory));
+
+        Files.write(module, "<xsl:transform xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'/>".getBytes("UTF-8"));
+        Files.setLastModifiedTime(module, FileTime.fromMillis(Files.getLastModifiedTime(module).toMillis() + 1000));
+        assertNotEquals(fingerprint, factory.getFingerprint());
+    }
+
+    @Test
+    public void testStreamingPipeline () throws ValidationException
+    {
+        assertTrue(validate("xslt2", true));
+        assertFalse(validate("xslt", true));
+    }
+
+    @Test
+    public void testStreamingVerdict () throws ValidationException
+    {
+        for (String queryBinding : Arrays.asList("xslt", "xslt2")) {
+            Testcase testcase = loader.load(Paths.get("src/test/resources/testcase.xml"));
+            testcase.populate(queryBinding);
+
+            JavaValidation validation = new JavaValidation(TransformerFactory.newInstance(), new String[0], compilerSteps);
+            validation.setSchema(testcase.getSchema());
+            validation.setDocument(testcase.getDocument());
+            validation.execute();
+            boolean valid = validation.isValid();
+            int failedAsserts = validation.countFailedAsserts();
+
+            validation.setReportRequired(false);
+            validation.execute();
+            assertNull(validation.getReport());
+            assertEquals(valid, validation.isValid());
+            assertEquals(failedAsserts, validation.countFailedAsserts());
+            testcase.deleteTemporaryFiles();
+        }
+    }
+
+    @Test
+    public void testInMemoryValidation ()
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase.xml"));
+        ValidationResult result = new Driver(createFactory("xslt2")).execute(testcase);
+
+        assertEquals(ValidationStatus.SUCCESS, result.getStatus());
+        assertNull(testcase.getTempDirectory());
+        for (Timings.Phase phase : Timings.Phase.values()) {
+            assertTrue(result.getTimings().has(phase), phase.toString());
+        }
+    }
+
+    @Test
+    public void testInMemorySecondaryDocument ()
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase-secondary.xml"));
+        ValidationResult result = new Driver(createFactory("xslt")).execute(testcase);
+
+        assertEquals(ValidationStatus.SUCCESS, result.getStatus(), result.getErrorMessage());
+    }
+
+    @Test
+    public void testGeneratedDocument ()
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase-generated.xml"));
+        ValidationResult result = new Driver(createFactory("xslt")).execute(testcase);
+
+        assertEquals(ValidationStatus.SUCCESS, result.getStatus(), result.getErrorMessage());
+        assertTrue(testcase.getDocumentSize() > 0);
+    }
+
+    @Test
+    public void testSchemaCache ()
+    {
+        JavaValidationFactory factory = createFactory("xslt2");
+        Driver driver = new Driver(factory);
+        for (int i = 0; i < 3; i++) {
+            ValidationResult result = driver.execute(loader.load(Paths.get("src/test/resources/testcase.xml")));
+            assertEquals(ValidationStatus.SUCCESS, result.getStatus(), result.getErrorMessage());
+        }
+
+        assertEquals(1, factory.getSchemaCache().size());
+        assertEquals(1, factory.getSchemaCache().countMisses());
+        assertEquals(2, factory.getSchemaCache().countHits());
+
+        factory.setSchemaCaching(false);
+        assertNull(factory.getSchemaCache());
+    }
+
+    @Test
+    public void testSchemaStore (@TempDir final Path directory)
+    {
+        SchemaStore store = new SchemaStore(directory);
+        for (int i = 0; i < 2; i++) {
+            JavaValidationFactory factory = createFactory("xslt2");
+            factory.setSchemaStore(store);
+            ValidationResult result = new Driver(factory).execute(loader.load(Paths.get("src/test/resources/testcase.xml")));
+            assertEquals(ValidationStatus.SUCCESS, result.getStatus(), result.getErrorMessage());
+        }
+
+        assertEquals(1, store.countMisses());
+        assertEquals(1, store.countHits());
+    }
+
+    JavaValidationFactory createFactory (final String queryBinding)
+    {
+        List<String> steps = Arrays.asList("src/test/resources/identity.xsl", "src/test/resources/compile.xsl");
+        return new JavaValidationFactory("java", queryBinding, TransformerFactory.newInstance(), new String[0], steps);
+    }
+
+    boolean validate (final String queryBinding, final boolean streamingPipeline) throws ValidationException
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase.xml"));
+        testcase.populate(queryBinding);
+
+        JavaValidation validation = new JavaValidation(TransformerFactory.newInstance(), new String[0], compilerSteps);
+        validation.setStreamingPipeline(streamingPipeline);
+        validation.setSchema(testcase.getSchema());
+        validation.setDocument(testcase.getDocument());
+        validation.setPhase(testcase.getPhase());
+        validation.execute();
+
+        assertNotNull(validation.getReport());
+        return validation.isValid();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+class MatrixRunnerTest
+{
+    TestcaseLoader loader = new TestcaseLoader();
+
+    @Test
+    public void testMatrixRun ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 10; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+        Testsuite testsuite = new Testsuite() {
+                public List<Testcase> getTestcases ()
+                {
+                    return testcases;
+                }
+
+                public String getLabel ()
+                {
+                    return "matrix";
+                }
+            };
+
+        MatrixRunner runner = new MatrixRunner();
+        runner.addProcessor("first", new Driver(new StubValidationFactory(10)));
+        runner.addProcessor("second", new Driver(new StubValidationFactory(10)), Arrays.asList(testcases.get(0).getId()));
+        runner.setParallelism(3);
+        MatrixReport report = runner.run(testsuite);
+
+        assertEquals(Arrays.asList("first", "second"), report.getProcessors());
+        assertEquals(10, report.getRows().size());
+        assertEquals(10, report.getReport("first").countSuccess());
+        assertEquals(10, report.getReport("second").countSkipped());
+        assertFalse(report.hasFailures());
+        assertFalse(report.getReport("first").isPhaseRecorded(Timings.Phase.LOAD));
+        assertEquals(0, report.getReport("first").getPercentile(Timings.Phase.LOAD, 100));
+        assertTrue(report.getLoadPercentile(100) > 0);
+
+        MatrixReport.Row row = report.getRows().get(0);
+        assertEquals(ValidationStatus.SUCCESS, row.getResult("first").getStatus());
+        assertEquals(ValidationStatus.SKIPPED, row.getResult("second").getStatus());
+        assertNotSame(row.getResult("first").getTestcase(), row.getResult("second").getTestcase());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.List;
+
+class PerformanceBaselineTest
+{
+    private static final long MILLISECOND = 1000000;
+
+    TestcaseLoader loader = new TestcaseLoader();
+
+    @Test
+    public void testCompare (@TempDir final Path directory) throws Exception
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase.xml"));
+
+        PerformanceBaseline previous = new PerformanceBaseline();
+        previous.record(createResult(testcase, ValidationStatus.SUCCESS, 10 * MILLISECOND));
+        previous.save(directory.resolve("baseline.properties"));
+
+        PerformanceBaseline current = new PerformanceBaseline();
+        current.record(createResult(testcase, ValidationStatus.SUCCESS, 20 * MILLISECOND));
+        current.record(createResult(testcase.copy(), ValidationStatus.SKIPPED, 0));
+
+        PerformanceBaseline baseline = PerformanceBaseline.load(directory.resolve("baseline.properties"));
+        assertEquals(1, baseline.countTestcases());
+
+        List<String> regressions = current.compare(baseline, 0.5, MILLISECOND);
+        assertEquals(3, regressions.size());
+        assertTrue(regressions.get(0).startsWith("Testcase example: 10.000 ms -> 20.000 ms"));
+        assertTrue(current.compare(baseline, 1.5, MILLISECOND).isEmpty());
+        assertTrue(current.compare(baseline, 0.5, 20 * MILLISECOND).isEmpty());
+        assertTrue(baseline.compare(current, 0, 0).isEmpty());
+    }
+
+    ValidationResult createResult (final Testcase testcase, final ValidationStatus status, final long duration)
+    {
+        Timings timings = new Timings();
+        if (duration > 0) {
+            timings.record(Timings.Phase.VALIDATE, duration);
+        }
+        return new ValidationResult(testcase, status, null, null, timings);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportTest
+{
+    @Test
+    public void testPercentile ()
+    {
+        Report report = new Report();
+        assertEquals(0, report.getPercentile(Timings.Phase.VALIDATE, 50));
+
+        for (int i = 1; i <= 100; i++) {
+            Timings timings = new Timings();
+            timings.record(Timings.Phase.VALIDATE, i);
+            report.addValidationResult(new ValidationResult(null, ValidationStatus.SUCCESS, null, null, timings));
+        }
+        report.addValidationResult(new ValidationResult(null, ValidationStatus.SKIPPED));
+
+        assertEquals(1, report.getPercentile(Timings.Phase.VALIDATE, 0));
+        assertEquals(50, report.getPercentile(Timings.Phase.VALIDATE, 50));
+        assertEquals(95, report.getPercentile(Timings.Phase.VALIDATE, 95));
+        assertEquals(100, report.getPercentile(Timings.Phase.VALIDATE, 100));
+        assertEquals(0, report.getPercentile(Timings.Phase.COMPILE, 50));
+    }
+}
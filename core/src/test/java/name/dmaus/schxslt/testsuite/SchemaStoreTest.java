@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import java.util.Arrays;
+import java.util.List;
+
+class SchemaStoreTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testStoreAndOpen () throws Exception
+    {
+        Path stylesheet = directory.resolve("compiled.xsl");
+        Files.write(stylesheet, "<stylesheet/>".getBytes("UTF-8"));
+
+        SchemaStore store = new SchemaStore(directory.resolve("store"));
+        try (InputStream in = store.open("a")) {
+            assertNull(in);
+        }
+        store.put("a", stylesheet);
+        try (InputStream in = store.open("a")) {
+            assertNotNull(in);
+        }
+        assertEquals(1, store.countHits());
+        assertEquals(1, store.countMisses());
+    }
+
+    @Test
+    public void testEvictOldestBySize () throws Exception
+    {
+        Path stylesheet = directory.resolve("compiled.xsl");
+        Files.write(stylesheet, new byte[100]);
+
+        SchemaStore store = new SchemaStore(directory.resolve("store"));
+        store.put("a", stylesheet);
+        Files.setLastModifiedTime(directory.resolve("store/a.xsl"), FileTime.fromMillis(0));
+        store.setMaxSize(150);
+        store.put("b", stylesheet);
+
+        assertFalse(Files.exists(directory.resolve("store/a.xsl")));
+        assertTrue(Files.exists(directory.resolve("store/b.xsl")));
+    }
+
+    @Test
+    public void testEvictByAge () throws Exception
+    {
+        Path stylesheet = directory.resolve("compiled.xsl");
+        Files.write(stylesheet, new byte[100]);
+
+        SchemaStore store = new SchemaStore(directory.resolve("store"));
+        store.put("a", stylesheet);
+        Files.setLastModifiedTime(directory.resolve("store/a.xsl"), FileTime.fromMillis(0));
+        store.setMaxAge(60000);
+
+        try (InputStream in = store.open("a")) {
+            assertNull(in);
+        }
+        assertFalse(Files.exists(directory.resolve("store/a.xsl")));
+    }
+
+    @Test
+    public void testKeyCoversModulesAndTestcase () throws Exception
+    {
+        Path step = directory.resolve("compile.xsl");
+        Path module = directory.resolve("module.xsl");
+        Path schema = directory.resolve("schema.sch");
+        Files.write(step, "<xsl:transform xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='1.0'><xsl:include href='module.xsl'/></xsl:transform>".getBytes("UTF-8"));
+        Files.write(module, "<xsl:transform xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='1.0'/>".getBytes("UTF-8"));
+        Files.write(schema, "<schema/>".getBytes("UTF-8"));
+
+        SchemaStore store = new SchemaStore(directory.resolve("store"));
+        List<Path> steps = Arrays.asList(step);
+        String key = store.createKey("java", "a", schema, null, steps);
+        assertEquals(key, store.createKey("java", "a", schema, null, steps));
+        assertNotEquals(key, store.createKey("java", "b", schema, null, steps));
+
+        Files.write(module, "<xsl:transform xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'/>".getBytes("UTF-8"));
+        Files.setLastModifiedTime(module, FileTime.fromMillis(Files.getLastModifiedTime(module).toMillis() + 1000));
+        assertNotEquals(key, store.createKey("java", "a", schema, null, steps));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import java.nio.file.Path;
+
+import java.util.Set;
+import java.util.HashSet;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+
+/**
+ * Validation factory whose validations accept every document.
+ *
+ */
+class StubValidationFactory implements ValidationFactory
+{
+    private final int minDelay;
+    private final int maxDelay;
+    private final AvailabilityProbe availabilityProbe = new AvailabilityProbe(() -> true);
+
+    StubValidationFactory (final int maxDelay)
+    {
+        this(0, maxDelay);
+    }
+
+    StubValidationFactory (final int minDelay, final int maxDelay)
+    {
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public void setBaseDirectory (final Path basedir)
+    {
+    }
+
+    public String getLabel ()
+    {
+        return "stub";
+    }
+
+    public String getQueryBinding ()
+    {
+        return "xslt";
+    }
+
+    public boolean isAvailable ()
+    {
+        return availabilityProbe.isAvailable();
+    }
+
+    public AvailabilityProbe getAvailabilityProbe ()
+    {
+        return availabilityProbe;
+    }
+
+    public Validation newInstance ()
+    {
+        return new StubValidation(minDelay, maxDelay);
+    }
+
+    static final class StubValidation implements Validation
+    {
+        private final int minDelay;
+        private final int maxDelay;
+        private boolean reportRequired = true;
+        private Document report;
+
+        StubValidation (final int minDelay, final int maxDelay)
+        {
+            this.minDelay = minDelay;
+            this.maxDelay = maxDelay;
+        }
+
+        public void setSchema (final Path schema)
+        {
+        }
+
+        public void setDocument (final Path document)
+        {
+        }
+
+        public void setPhase (final String phase)
+        {
+        }
+
+        public Set<String> getFeatures ()
+        {
+            return new HashSet<String>();
+        }
+
+        public boolean isValid ()
+        {
+            return true;
+        }
+
+        public void setReportRequired (final boolean reportRequired)
+        {
+            this.reportRequired = reportRequired;
+        }
+
+        public Document getReport ()
+        {
+            return report;
+        }
+
+        public void execute () throws ValidationException
+        {
+            try {
+                if (maxDelay > minDelay) {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(minDelay, maxDelay));
+                }
+                report = null;
+                if (reportRequired) {
+                    report = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+                    report.appendChild(report.createElementNS("http://purl.oclc.org/dsdl/svrl", "schematron-output"));
+                }
+            } catch (InterruptedException | ParserConfigurationException e) {
+                throw new ValidationException(e);
+            }
+        }
+    }
+}
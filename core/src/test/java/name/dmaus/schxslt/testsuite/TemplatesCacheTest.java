@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+
+class TemplatesCacheTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testTemplatesAreCompiledOnce () throws Exception
+    {
+        Path stylesheet = Files.copy(Paths.get("src/test/resources/simple.xsl"), directory.resolve("simple.xsl"));
+
+        TemplatesCache cache = new TemplatesCache(TransformerFactory.newInstance());
+        Templates first = cache.get(stylesheet);
+        assertSame(first, cache.get(stylesheet));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testThreadSafeFactoryIsNotLocked () throws Exception
+    {
+        Path stylesheet = Files.copy(Paths.get("src/test/resources/simple.xsl"), directory.resolve("simple.xsl"));
+
+        TemplatesCache cache = new TemplatesCache(TransformerFactory.newInstance());
+        assertFalse(cache.isThreadSafe());
+        cache.setThreadSafe(true);
+        Templates first = cache.get(stylesheet);
+        assertSame(first, cache.get(stylesheet));
+    }
+
+    @Test
+    public void testTemplatesAreRecompiledWhenModified () throws Exception
+    {
+        Path stylesheet = Files.copy(Paths.get("src/test/resources/simple.xsl"), directory.resolve("simple.xsl"));
+
+        TemplatesCache cache = new TemplatesCache(TransformerFactory.newInstance());
+        Templates first = cache.get(stylesheet);
+        Files.setLastModifiedTime(stylesheet, FileTime.fromMillis(Files.getLastModifiedTime(stylesheet).toMillis() + 1000));
+        assertNotSame(first, cache.get(stylesheet));
+        assertEquals(1, cache.size());
+    }
+}
@@ -45,4 +45,13 @@ class TestcaseTest
         assertNotNull(testcase.getSchema());
         assertNotNull(testcase.getDocument());
     }
+
+    @Test
+    public void testExpectationsAreCompiledOnce () throws Exception
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase.xml"));
+
+        assertEquals(1, testcase.getExpectations().size());
+        assertSame(testcase.getExpectations().get(0), testcase.getExpectations().get(0));
+    }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+
+import java.time.Duration;
+
+import javax.xml.transform.TransformerFactory;
+
+class TestsuiteRunnerTest
+{
+    TestcaseLoader loader = new TestcaseLoader();
+
+    @Test
+    public void testParallelRunKeepsTestsuiteOrder ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 20; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+        Testsuite testsuite = createTestsuite(testcases);
+
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(new StubValidationFactory(20)));
+        runner.setParallelism(4);
+        Report report = runner.run(testsuite);
+
+        assertEquals(20, report.countTotal());
+        assertEquals(20, report.countSuccess());
+        List<ValidationResult> results = report.getValidationResults();
+        for (int i = 0; i < testcases.size(); i++) {
+            assertSame(testcases.get(i), results.get(i).getTestcase());
+        }
+    }
+
+    @Test
+    public void testReportSinks (@TempDir final Path directory) throws Exception
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 5; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(new StubValidationFactory(0)));
+        runner.setRetainResults(false);
+        runner.addReportSink(ReportSinks.createFileSink(directory.resolve("report.xml")));
+        runner.addReportSink(ReportSinks.createFileSink(directory.resolve("report.jsonl")));
+        Report report = runner.run(createTestsuite(testcases));
+
+        assertEquals(5, report.countTotal());
+        assertTrue(report.getValidationResults().isEmpty());
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        Document junit = factory.newDocumentBuilder().parse(directory.resolve("report.xml").toFile());
+        assertEquals("5", junit.getDocumentElement().getAttribute("tests"));
+        assertEquals(5, junit.getElementsByTagName("testcase").getLength());
+
+        List<String> lines = Files.readAllLines(directory.resolve("report.jsonl"));
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).contains("\"status\":\"SUCCESS\""));
+    }
+
+    @Test
+    public void testFailFast ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 10; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+        List<String> steps = Arrays.asList("src/test/resources/identity.xsl", "src/test/resources/compile.xsl");
+        JavaValidationFactory factory = new JavaValidationFactory("java", "xslt", TransformerFactory.newInstance(), new String[0], steps);
+
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(factory));
+        runner.setFailFast(true);
+        Report report = runner.run(createTestsuite(testcases));
+
+        assertEquals(10, report.countTotal());
+        assertEquals(1, report.countFailure());
+        assertEquals(9, report.countCancelled());
+        assertEquals(ValidationStatus.FAILURE, report.getValidationResults().get(0).getStatus());
+        assertEquals(ValidationStatus.CANCELLED, report.getValidationResults().get(9).getStatus());
+        assertTrue(report.getStopReason().contains("example"));
+    }
+
+    @Test
+    public void testTimeBudget ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 10; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(new StubValidationFactory(0)));
+        runner.setParallelism(2);
+        runner.setTimeBudget(Duration.ZERO);
+        Report report = runner.run(createTestsuite(testcases));
+
+        assertEquals(10, report.countTotal());
+        assertEquals(10, report.countCancelled());
+        assertNotNull(report.getStopReason());
+    }
+
+    @Test
+    public void testStopWhileRunning ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 20; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(new StubValidationFactory(300, 900)));
+        runner.setParallelism(4);
+        runner.setTimeBudget(Duration.ofMillis(200));
+        Report report = runner.run(createTestsuite(testcases));
+
+        assertEquals(20, report.countTotal());
+        assertEquals(20, report.countSuccess() + report.countCancelled());
+        assertTrue(report.countCancelled() > 0);
+
+        boolean cancelled = false;
+        for (ValidationResult result : report.getValidationResults()) {
+            cancelled = cancelled || result.getStatus() == ValidationStatus.CANCELLED;
+            if (cancelled) {
+                assertEquals(ValidationStatus.CANCELLED, result.getStatus());
+            }
+        }
+    }
+
+    @Test
+    public void testTimeout ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        for (int i = 0; i < 3; i++) {
+            testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        }
+
+        Driver driver = new Driver(new StubValidationFactory(60000, 60001));
+        driver.setTimeout(Duration.ofMillis(50));
+        Report report = new TestsuiteRunner(driver).run(createTestsuite(testcases));
+
+        assertEquals(3, report.countTimeout());
+        assertTrue(report.hasFailures());
+        assertEquals(ValidationStatus.TIMEOUT, report.getValidationResults().get(2).getStatus());
+    }
+
+    @Test
+    public void testResultManifest (@TempDir final Path directory)
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        testcases.add(loader.load(Paths.get("src/test/resources/testcase-secondary.xml")));
+        Path file = directory.resolve("manifest.properties");
+
+        Report first = runWithManifest("xslt2", file, testcases);
+        assertEquals(0, first.countReused());
+        assertEquals(2, first.countSuccess());
+
+        Report second = runWithManifest("xslt2", file, testcases);
+        assertEquals(2, second.countReused());
+        assertEquals(2, second.countSuccess());
+        assertTrue(second.getValidationResults().get(0).isReused());
+        assertFalse(first.getValidationResults().get(0).isReused());
+
+        Report other = runWithManifest("xslt", file, testcases);
+        assertEquals(0, other.countReused());
+    }
+
+    @Test
+    public void testStopKeepsManifestEntries (@TempDir final Path directory)
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+        testcases.add(loader.load(Paths.get("src/test/resources/testcase-secondary.xml")));
+        Path file = directory.resolve("manifest.properties");
+
+        assertEquals(2, runWithManifest("xslt2", file, testcases).countSuccess());
+        assertEquals(2, runWithManifest("xslt2", file, testcases, Duration.ZERO).countCancelled());
+        assertEquals(2, runWithManifest("xslt2", file, testcases).countReused());
+    }
+
+    Report runWithManifest (final String queryBinding, final Path file, final List<Testcase> testcases)
+    {
+        return runWithManifest(queryBinding, file, testcases, null);
+    }
+
+    Report runWithManifest (final String queryBinding, final Path file, final List<Testcase> testcases, final Duration timeBudget)
+    {
+        List<String> steps = Arrays.asList("src/test/resources/identity.xsl", "src/test/resources/compile.xsl");
+        JavaValidationFactory factory = new JavaValidationFactory("java", queryBinding, TransformerFactory.newInstance(), new String[0], steps);
+
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(factory));
+        runner.setResultManifest(new ResultManifest(file));
+        runner.setTimeBudget(timeBudget);
+        return runner.run(createTestsuite(testcases));
+    }
+
+    @Test
+    public void testFactoryWithoutAvailabilityProbe ()
+    {
+        final List<Testcase> testcases = new ArrayList<Testcase>();
+        testcases.add(loader.load(Paths.get("src/test/resources/testcase.xml")));
+
+        ValidationFactory factory = new StubValidationFactory(0) {
+                public AvailabilityProbe getAvailabilityProbe ()
+                {
+                    return null;
+                }
+            };
+        Report report = new TestsuiteRunner(new Driver(factory)).run(createTestsuite(testcases));
+
+        assertEquals(1, report.countSuccess());
+        assertEquals(0, report.countAvailabilityProbes());
+    }
+
+    Testsuite createTestsuite (final List<Testcase> testcases)
+    {
+        return new Testsuite() {
+                public List<Testcase> getTestcases ()
+                {
+                    return testcases;
+                }
+
+                public String getLabel ()
+                {
+                    return "parallel";
+                }
+            };
+    }
+
+    @Test
+    public void testInvalidParallelism ()
+    {
+        TestsuiteRunner runner = new TestsuiteRunner(new Driver(new StubValidationFactory(0)));
+        assertThrows(IllegalArgumentException.class, () -> runner.setParallelism(0));
+    }
+}
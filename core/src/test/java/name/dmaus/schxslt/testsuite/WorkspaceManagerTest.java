@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+class WorkspaceManagerTest
+{
+    TestcaseLoader loader = new TestcaseLoader();
+
+    @Test
+    public void testReleaseDeletesWorkspace () throws ValidationException
+    {
+        WorkspaceManager manager = new WorkspaceManager();
+        Testcase testcase = populate(manager);
+
+        assertFalse(manager.release(testcase.getWorkspace(), ValidationStatus.FAILURE));
+        assertTrue(testcase.getWorkspace().isDeleted());
+        assertFalse(Files.exists(testcase.getTempDirectory()));
+        assertTrue(manager.getTotalSize() > 0);
+        assertEquals(0, manager.countKept());
+    }
+
+    @Test
+    public void testKeepFailures () throws ValidationException
+    {
+        WorkspaceManager manager = new WorkspaceManager();
+        manager.setKeepFailures(true);
+
+        Testcase success = populate(manager);
+        assertFalse(manager.release(success.getWorkspace(), ValidationStatus.SUCCESS));
+        assertFalse(Files.exists(success.getTempDirectory()));
+
+        Testcase failure = populate(manager);
+        assertTrue(manager.release(failure.getWorkspace(), ValidationStatus.FAILURE));
+        assertTrue(Files.exists(failure.getTempDirectory()));
+        assertEquals(1, manager.countKept());
+        assertEquals(failure.getWorkspace().size(), manager.getKeptSize());
+
+        failure.deleteTemporaryFiles();
+        assertFalse(Files.exists(failure.getTempDirectory()));
+    }
+
+    @Test
+    public void testRoot (@TempDir final Path directory) throws ValidationException
+    {
+        WorkspaceManager manager = new WorkspaceManager();
+        manager.setRoot(directory.resolve("workspaces"));
+
+        Testcase testcase = populate(manager);
+        assertTrue(testcase.getSchema().startsWith(directory.resolve("workspaces")));
+
+        manager.release(testcase.getWorkspace(), ValidationStatus.SUCCESS);
+        assertFalse(Files.exists(testcase.getTempDirectory()));
+    }
+
+    Testcase populate (final WorkspaceManager manager) throws ValidationException
+    {
+        Testcase testcase = loader.load(Paths.get("src/test/resources/testcase.xml"));
+        testcase.setWorkspace(manager.create(testcase.getId()));
+        testcase.populate("xslt");
+        return testcase;
+    }
+}
@@ -0,0 +1,36 @@
+<xsl:transform version="1.0"
+               xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+               xmlns:alias="http://www.w3.org/1999/XSL/TransformAlias"
+               xmlns:sch="http://purl.oclc.org/dsdl/schematron"
+               xmlns:svrl="http://purl.oclc.org/dsdl/svrl">
+
+  <!-- Minimal Schematron compiler for unit tests: supports rules with asserts and reports -->
+
+  <xsl:namespace-alias stylesheet-prefix="alias" result-prefix="xsl"/>
+
+  <xsl:param name="phase"/>
+
+  <xsl:template match="/">
+    <alias:transform version="1.0">
+      <alias:template match="/">
+        <svrl:schematron-output phase="{$phase}">
+          <xsl:for-each select="sch:schema/sch:pattern/sch:rule">
+            <alias:for-each select="//{@context}">
+              <xsl:for-each select="sch:assert">
+                <alias:if test="not({@test})">
+                  <svrl:failed-assert test="{@test}"/>
+                </alias:if>
+              </xsl:for-each>
+              <xsl:for-each select="sch:report">
+                <alias:if test="{@test}">
+                  <svrl:successful-report test="{@test}"/>
+                </alias:if>
+              </xsl:for-each>
+            </alias:for-each>
+          </xsl:for-each>
+        </svrl:schematron-output>
+      </alias:template>
+    </alias:transform>
+  </xsl:template>
+
+</xsl:transform>
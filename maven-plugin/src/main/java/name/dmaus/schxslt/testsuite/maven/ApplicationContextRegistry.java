@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2021 by David Maus <dmaus@dmaus.name>
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package name.dmaus.schxslt.testsuite.maven;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.FileSystemXmlApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Application contexts shared by all plugin executions in the same JVM.
+ *
+ * <p>Creating the context instantiates the validation factories with their transformer factories and caches. Sharing
+ * the context lets modules of a reactor build and repeated builds in a long-running Maven daemon reuse compiled
+ * stylesheets and schemas. A context is keyed by the canonical path of the configuration file and replaced once the
+ * file is modified. Contexts are closed when they are replaced or the JVM exits.</p>
+ *
+ * <p>The shared factories are not modified by an execution. Every execution resolves the compiler steps against its
+ * own base directory through its drivers, so modules sharing a context can run concurrently.</p>
+ *
+ */
+final class ApplicationContextRegistry
+{
+    private static final Map<String, Entry> CONTEXTS = new HashMap<String, Entry>();
+
+    private ApplicationContextRegistry ()
+    {
+    }
+
+    /**
+     * Return the context of a configuration file.
+     *
+     * @param config Spring beans configuration file
+     * @return Application context
+     * @throws IOException Error resolving the configuration file
+     */
+    static synchronized ConfigurableApplicationContext getContext (final File config) throws IOException
+    {
+        File file = config.getCanonicalFile();
+        long lastModified = file.lastModified();
+
+        Entry entry = CONTEXTS.get(file.getPath());
+        if (entry != null && entry.lastModified == lastModified) {
+            return entry.context;
+        }
+        if (entry != null) {
+            entry.context.close();
+        }
+        entry = new Entry(new FileSystemXmlApplicationContext(file.toURI().toString()), lastModified);
+        entry.context.registerShutdownHook();
+        CONTEXTS.put(file.getPath(), entry);
+        return entry.context;
+    }
+
+    static final class Entry
+    {
+        final ConfigurableApplicationContext context;
+        final long lastModified;
+
+        Entry (final ConfigurableApplicationContext context, final long lastModified)
+        {
+            this.context = context;
+            this.lastModified = lastModified;
+        }
+    }
+}
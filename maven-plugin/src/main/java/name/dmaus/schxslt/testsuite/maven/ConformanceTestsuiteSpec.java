@@ -35,7 +35,10 @@ import name.dmaus.schxslt.conformance.Locator;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugin.MojoExecutionException;
 
+import java.io.File;
+
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -48,12 +51,24 @@ public final class ConformanceTestsuiteSpec implements TestsuiteSpec
     @Parameter(required = true)
     private String label;
 
-    @Parameter(required = true)
+    @Parameter(required = false)
     private String processorId;
 
+    @Parameter(required = false)
+    private List<String> processorIds;
+
     @Parameter(required = false)
     private List<String> skip;
 
+    @Parameter(required = false)
+    private File report;
+
+    @Parameter(required = false)
+    private File manifest;
+
+    @Parameter(required = false)
+    private File baseline;
+
     public Testsuite createTestsuite () throws MojoExecutionException
     {
         try {
@@ -75,8 +90,31 @@ public final class ConformanceTestsuiteSpec implements TestsuiteSpec
         return processorId;
     }
 
+    public List<String> getProcessorIds ()
+    {
+        if (processorIds == null || processorIds.isEmpty()) {
+            return Collections.singletonList(processorId);
+        }
+        return processorIds;
+    }
+
     public List<String> getSkip ()
     {
         return skip;
     }
+
+    public File getReport ()
+    {
+        return report;
+    }
+
+    public File getManifest ()
+    {
+        return manifest;
+    }
+
+    public File getBaseline ()
+    {
+        return baseline;
+    }
 }
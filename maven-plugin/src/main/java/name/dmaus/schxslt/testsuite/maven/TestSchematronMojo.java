@@ -37,13 +37,29 @@ import name.dmaus.schxslt.testsuite.ValidationStatus;
 import name.dmaus.schxslt.testsuite.Driver;
 import name.dmaus.schxslt.testsuite.TestsuiteRunner;
 import name.dmaus.schxslt.testsuite.Report;
+import name.dmaus.schxslt.testsuite.Timings;
+import name.dmaus.schxslt.testsuite.ReportSink;
+import name.dmaus.schxslt.testsuite.ReportSinks;
+import name.dmaus.schxslt.testsuite.ResultManifest;
+import name.dmaus.schxslt.testsuite.MatrixRunner;
+import name.dmaus.schxslt.testsuite.MatrixReport;
+import name.dmaus.schxslt.testsuite.PerformanceBaseline;
+import name.dmaus.schxslt.testsuite.Workspace;
+import name.dmaus.schxslt.testsuite.WorkspaceManager;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.FileSystemXmlApplicationContext;
 
 /**
@@ -53,6 +69,11 @@ import org.springframework.context.support.FileSystemXmlApplicationContext;
 @Mojo(name = "test-schematron")
 public final class TestSchematronMojo extends AbstractMojo
 {
+    private static final double NANOS_PER_MILLISECOND = 1e6;
+    private static final double MEDIAN = 50;
+    private static final double P95 = 95;
+    private static final double P99 = 99;
+    private static final double PERCENT = 100.0;
 
     @Parameter(required = false, defaultValue = "${basedir}")
     private String basedir;
@@ -63,56 +84,294 @@ public final class TestSchematronMojo extends AbstractMojo
     @Parameter(required = false)
     private List<TestsuiteSpec> testsuites;
 
+    @Parameter(required = false, defaultValue = "1")
+    private int parallelism;
+
+    @Parameter(required = false, defaultValue = "false")
+    private boolean keepFailures;
+
+    @Parameter(required = false)
+    private File workspace;
+
+    @Parameter(required = false, defaultValue = "false")
+    private boolean failFast;
+
+    @Parameter(required = false, defaultValue = "0")
+    private long timeBudget;
+
+    @Parameter(required = false, defaultValue = "0")
+    private long timeout;
+
+    @Parameter(required = false, defaultValue = "0.2")
+    private double baselineTolerance;
+
+    @Parameter(required = false, defaultValue = "10")
+    private long baselineMinimumDifference;
+
+    @Parameter(required = false, defaultValue = "false")
+    private boolean updateBaseline;
+
+    @Parameter(required = false, defaultValue = "true")
+    private boolean shareContext;
+
+    private int countRegressions;
+
     public void execute () throws MojoExecutionException, MojoFailureException
     {
         getLog().info(basedir);
+        ConfigurableApplicationContext ctx;
+        if (shareContext) {
+            try {
+                ctx = ApplicationContextRegistry.getContext(config);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to read configuration " + config, e);
+            }
+        } else {
+            ctx = new FileSystemXmlApplicationContext(config.toURI().toString());
+        }
+
+        boolean failMojoExecution;
+        try {
+            failMojoExecution = runTestsuites(ctx);
+        } finally {
+            if (!shareContext) {
+                ctx.close();
+            }
+        }
+        if (failMojoExecution) {
+            throw new MojoFailureException("Some Schematron tests failed");
+        }
+        if (countRegressions > 0) {
+            throw new MojoFailureException(String.format("Performance regressed in %d measurements beyond the tolerance of %.0f%%", countRegressions, baselineTolerance * PERCENT));
+        }
+    }
+
+    boolean runTestsuites (final ApplicationContext ctx) throws MojoExecutionException
+    {
         boolean failMojoExecution = false;
-        ApplicationContext ctx = new FileSystemXmlApplicationContext(config.toURI().toString());
         for (TestsuiteSpec spec : testsuites) {
             Testsuite testsuite = spec.createTestsuite();
             getLog().info("Running testsuite " + testsuite.getLabel());
-            ValidationFactory factory = (ValidationFactory)ctx.getBean(spec.getProcessorId());
-            factory.setBaseDirectory(Paths.get(basedir));
-            Driver driver = new Driver(factory);
-            TestsuiteRunner runner;
+            if (spec.getProcessorIds().contains(null)) {
+                throw new MojoExecutionException("No processor configured for testsuite " + testsuite.getLabel());
+            }
+            if (spec.getProcessorIds().size() > 1) {
+                failMojoExecution = runMatrix(ctx, spec, testsuite) || failMojoExecution;
+            } else {
+                failMojoExecution = runSingle(ctx, spec, testsuite) || failMojoExecution;
+            }
+        }
+        return failMojoExecution;
+    }
+
+    boolean runSingle (final ApplicationContext ctx, final TestsuiteSpec spec, final Testsuite testsuite) throws MojoExecutionException
+    {
+        TestsuiteRunner runner;
+        Driver driver = createDriver(ctx, spec.getProcessorIds().get(0));
+        if (spec.getSkip() == null) {
+            runner = new TestsuiteRunner(driver);
+        } else {
+            runner = new TestsuiteRunner(driver, spec.getSkip());
+        }
+        runner.setParallelism(parallelism);
+        runner.setFailFast(failFast);
+        if (timeBudget > 0) {
+            runner.setTimeBudget(Duration.ofSeconds(timeBudget));
+        }
+        runner.setRetainResults(false);
+        runner.addReportSink(new LogReportSink());
+        if (spec.getReport() != null) {
+            runner.addReportSink(ReportSinks.createFileSink(spec.getReport().toPath()));
+        }
+        if (spec.getManifest() != null) {
+            runner.setResultManifest(new ResultManifest(spec.getManifest().toPath()));
+        }
+        PerformanceBaseline timings = new PerformanceBaseline();
+        if (spec.getBaseline() != null) {
+            runner.addReportSink(timings);
+        }
+        Report report = runner.run(testsuite);
+        boolean failed = printSummary(report);
+        if (spec.getBaseline() != null) {
+            checkBaseline(spec.getBaseline().toPath(), timings);
+        }
+        return failed;
+    }
+
+    boolean runMatrix (final ApplicationContext ctx, final TestsuiteSpec spec, final Testsuite testsuite) throws MojoExecutionException
+    {
+        MatrixRunner runner = new MatrixRunner();
+        Map<String, PerformanceBaseline> timings = new HashMap<String, PerformanceBaseline>();
+        for (String processorId : spec.getProcessorIds()) {
             if (spec.getSkip() == null) {
-                runner = new TestsuiteRunner(driver);
+                runner.addProcessor(processorId, createDriver(ctx, processorId));
             } else {
-                runner = new TestsuiteRunner(driver, spec.getSkip());
+                runner.addProcessor(processorId, createDriver(ctx, processorId), spec.getSkip());
+            }
+            if (spec.getReport() != null) {
+                runner.addReportSink(processorId, ReportSinks.createFileSink(getProcessorReportFile(spec.getReport(), processorId)));
             }
-            Report report = runner.run(testsuite);
+            if (spec.getBaseline() != null) {
+                timings.put(processorId, new PerformanceBaseline());
+                runner.addReportSink(processorId, timings.get(processorId));
+            }
+        }
+        runner.setParallelism(parallelism);
+        MatrixReport matrix = runner.run(testsuite);
+        getLog().debug(String.format("%s p50/p95/p99 = %.3f/%.3f/%.3f ms", Timings.Phase.LOAD,
+                                     matrix.getLoadPercentile(MEDIAN) / NANOS_PER_MILLISECOND,
+                                     matrix.getLoadPercentile(P95) / NANOS_PER_MILLISECOND,
+                                     matrix.getLoadPercentile(P99) / NANOS_PER_MILLISECOND));
+
+        boolean failed = false;
+        for (String processorId : matrix.getProcessors()) {
+            getLog().info("Processor " + processorId);
+            Report report = matrix.getReport(processorId);
             printReport(report);
-            final String msg = String.format("[Passed/Skipped/Failed/Total] = [%d/%d/%d/%d]",
-                                             report.countSuccess(),
-                                             report.countSkipped(),
-                                             report.countFailure() + report.countError(),
-                                             report.countTotal()
-                                             );
-            if (report.countFailure() > 0 || report.countError() > 0) {
-                failMojoExecution = true;
-                getLog().error(msg);
-            } else {
-                getLog().info(msg);
+            failed = printSummary(report) || failed;
+            if (spec.getBaseline() != null) {
+                checkBaseline(getProcessorReportFile(spec.getBaseline(), processorId), timings.get(processorId));
             }
         }
-        if (failMojoExecution) {
-            throw new MojoFailureException("Some Schematron tests failed");
+        return failed;
+    }
+
+    /*
+     * Compare the timings of this run against the stored baseline.
+     *
+     * A missing baseline is recorded from this run.
+     */
+    void checkBaseline (final Path file, final PerformanceBaseline timings) throws MojoExecutionException
+    {
+        try {
+            if (Files.exists(file)) {
+                List<String> regressions = timings.compare(PerformanceBaseline.load(file), baselineTolerance, Duration.ofMillis(baselineMinimumDifference).toNanos());
+                for (String regression : regressions) {
+                    getLog().error("Performance regression: " + regression);
+                }
+                if (regressions.isEmpty()) {
+                    getLog().info("No performance regression against baseline " + file);
+                }
+                countRegressions += regressions.size();
+                if (!updateBaseline) {
+                    return;
+                }
+            }
+            timings.save(file);
+            getLog().info(String.format("Recorded performance baseline of %d testcases in %s", timings.countTestcases(), file));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MojoExecutionException("Unable to use performance baseline " + file, e);
         }
     }
 
+    /*
+     * Insert the processor id before the extension of a report or baseline file.
+     */
+    Path getProcessorReportFile (final File report, final String processorId)
+    {
+        String filename = report.getName();
+        int extension = filename.lastIndexOf('.');
+        if (extension < 0) {
+            extension = filename.length();
+        }
+        return report.toPath().resolveSibling(filename.substring(0, extension) + "-" + processorId + filename.substring(extension));
+    }
+
+    Driver createDriver (final ApplicationContext ctx, final String processorId)
+    {
+        Driver driver = new Driver((ValidationFactory)ctx.getBean(processorId));
+        driver.setBaseDirectory(Paths.get(basedir));
+        WorkspaceManager workspaceManager = new WorkspaceManager();
+        workspaceManager.setKeepFailures(keepFailures);
+        if (workspace != null) {
+            workspaceManager.setRoot(workspace.toPath());
+        }
+        driver.setWorkspaceManager(workspaceManager);
+        if (timeout > 0) {
+            driver.setTimeout(Duration.ofSeconds(timeout));
+        }
+        return driver;
+    }
+
+    boolean printSummary (final Report report)
+    {
+        getLog().debug(String.format("Availability probes: %d in %.3f ms", report.countAvailabilityProbes(), report.getAvailabilityProbeDuration() / NANOS_PER_MILLISECOND));
+        getLog().debug(String.format("Schema cache: %d hits, %d misses", report.countSchemaCacheHits(), report.countSchemaCacheMisses()));
+        if (report.getStopReason() != null) {
+            getLog().warn(String.format("Stopped early: %s, %d testcases cancelled", report.getStopReason(), report.countCancelled()));
+        }
+        if (report.countReused() > 0) {
+            getLog().info(String.format("Unchanged: %d testcases not executed again", report.countReused()));
+        }
+        if (report.getValidatedBytes() > 0) {
+            getLog().info(String.format("Throughput: %d bytes validated at %.0f bytes/s", report.getValidatedBytes(), report.getThroughput()));
+        }
+        getLog().debug(String.format("Workspaces: %d created, %d kept, %d bytes written", report.countWorkspaces(), report.countKeptWorkspaces(), report.getWorkspaceSize()));
+        for (Timings.Phase phase : Timings.Phase.values()) {
+            if (report.isPhaseRecorded(phase)) {
+                getLog().debug(String.format("%s p50/p95/p99 = %.3f/%.3f/%.3f ms", phase,
+                                             report.getPercentile(phase, MEDIAN) / NANOS_PER_MILLISECOND,
+                                             report.getPercentile(phase, P95) / NANOS_PER_MILLISECOND,
+                                             report.getPercentile(phase, P99) / NANOS_PER_MILLISECOND));
+            }
+        }
+        final String msg = String.format("[Passed/Skipped/Failed/Total] = [%d/%d/%d/%d]",
+                                         report.countSuccess(),
+                                         report.countSkipped(),
+                                         report.countFailure() + report.countError() + report.countTimeout(),
+                                         report.countTotal()
+                                         );
+        if (report.hasFailures()) {
+            getLog().error(msg);
+            return true;
+        }
+        getLog().info(msg);
+        return false;
+    }
+
     void printReport (final Report report)
     {
         for (ValidationResult result : report.getValidationResults()) {
-            final String msg = String.format("Status: %s Id: %s Label: %s", result.getStatus(), result.getTestcase().getId(), result.getTestcase().getLabel());
-            if (result.getStatus() == ValidationStatus.FAILURE || result.getStatus() == ValidationStatus.ERROR) {
-                getLog().error(msg);
-                if (result.getErrorMessage() != null) {
-                    getLog().error(result.getErrorMessage());
-                }
-            } else if (result.getStatus() == ValidationStatus.SKIPPED) {
-                getLog().warn(msg);
+            printResult(result);
+        }
+    }
+
+    void printResult (final ValidationResult result)
+    {
+        final String msg = String.format("Status: %s Id: %s Label: %s", result.getStatus(), result.getTestcase().getId(), result.getTestcase().getLabel());
+        if (result.getStatus() == ValidationStatus.FAILURE || result.getStatus() == ValidationStatus.ERROR || result.getStatus() == ValidationStatus.TIMEOUT) {
+            getLog().error(msg);
+            if (result.getErrorMessage() != null) {
+                getLog().error(result.getErrorMessage());
+            }
+            Workspace workspace = result.getTestcase().getWorkspace();
+            if (workspace != null && !workspace.isDeleted()) {
+                getLog().error("Files kept in " + workspace.getDirectory());
             }
-            result.getTestcase().deleteTemporaryFiles();
+        } else if (result.getStatus() == ValidationStatus.SKIPPED || result.getStatus() == ValidationStatus.CANCELLED) {
+            getLog().warn(msg);
+        } else if (result.isReused()) {
+            getLog().debug(msg + " " + result.getErrorMessage());
+        }
+    }
+
+    /**
+     * Log every result as soon as it is available.
+     *
+     */
+    final class LogReportSink implements ReportSink
+    {
+        public void start (final Report report)
+        {
+        }
+
+        public void write (final ValidationResult result)
+        {
+            printResult(result);
+        }
+
+        public void finish (final Report report)
+        {
         }
     }
 }
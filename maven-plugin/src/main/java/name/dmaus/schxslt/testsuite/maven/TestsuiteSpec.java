@@ -24,6 +24,8 @@
 
 package name.dmaus.schxslt.testsuite.maven;
 
+import java.io.File;
+
 import java.util.List;
 
 import name.dmaus.schxslt.testsuite.Testsuite;
@@ -36,4 +38,8 @@ interface TestsuiteSpec
     public List<String> getSkip ();
     public Testsuite createTestsuite () throws MojoExecutionException;
     public String getProcessorId ();
+    public List<String> getProcessorIds ();
+    public File getReport ();
+    public File getManifest ();
+    public File getBaseline ();
 }